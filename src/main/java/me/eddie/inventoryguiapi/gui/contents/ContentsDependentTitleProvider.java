@@ -0,0 +1,15 @@
+package me.eddie.inventoryguiapi.gui.contents;
+
+/**
+ * Implemented by GUIContentsProviders whose titles may depend on work done while generating the contents of a page.
+ * By default a GUIPopulator asks for a page's contents and title at the same time, a GUIContentsProvider implementing
+ * this will instead only be asked for the title once it has provided the contents, whenever
+ * {@link #isTitleDependentOnContents()} is true.
+ */
+public interface ContentsDependentTitleProvider {
+    /**
+     * Whether or not the title can currently only be generated after the contents have been
+     * @return True if the title must be generated after the contents, False if they can be generated at the same time
+     */
+    public boolean isTitleDependentOnContents();
+}
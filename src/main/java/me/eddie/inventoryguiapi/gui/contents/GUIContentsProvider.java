@@ -74,6 +74,10 @@ public interface GUIContentsProvider {
      * Calculate the GUIElements to display on this page and if another exists.
      * Once calculated the result (a GUIContentsResponse) should be passed to the provided callback.
      * If the callback isn't called then the GUI will not work properly.
+     * Providers that call back later (Eg. after asynchronous work) can get {@link GUISession#getCurrentRequest()} when
+     * called and check {@link me.eddie.inventoryguiapi.gui.session.RequestToken#isCancelled()} to stop work that is no
+     * longer wanted, the results of cancelled requests are ignored. When a SharedGUI calculates a page once for all of
+     * it's viewers, the request is instead {@link me.eddie.inventoryguiapi.gui.guis.SharedGUI#getPageRequest(int)}.
      * @param viewer The viewer of this inventory. In the case of a GUI with multiple viewers (SharedInventoryGUI) this will be whatever viewer caused this method to be called
      * @param page The page to retrieve the contents for. Page 1 is the first page.
      * @param session The GUISession being viewed
@@ -84,6 +88,7 @@ public interface GUIContentsProvider {
      * Calculate the title to display for a given page.
      * Once calculated the result (a String) should be passed to the provided callback.
      * If the callback isn't called then the GUI will not work properly.
+     * When a SharedGUI calculates a page once for all of it's viewers, this is called for one viewer of each language they use.
      * @param viewer The viewer of this inventory. In the case of a GUI with multiple viewers (SharedInventoryGUI) this will be whatever viewer caused this method to be called
      * @param page The page to retrieve the contents for. Page 1 is the first page.
      * @param session The GUISession being viewed
@@ -1,23 +1,38 @@
 package me.eddie.inventoryguiapi.gui.contents;
 
+import me.eddie.inventoryguiapi.gui.elements.AbstractGUIElement;
 import me.eddie.inventoryguiapi.gui.elements.ActionItem;
 import me.eddie.inventoryguiapi.gui.elements.GUIElement;
 import me.eddie.inventoryguiapi.gui.elements.GUIElementFactory;
 import me.eddie.inventoryguiapi.gui.events.GUIClickEvent;
+import me.eddie.inventoryguiapi.gui.events.GUIEvent;
 import me.eddie.inventoryguiapi.gui.guis.GUI;
 import me.eddie.inventoryguiapi.gui.guis.InventoryGUI;
 import me.eddie.inventoryguiapi.gui.session.GUISession;
+import me.eddie.inventoryguiapi.gui.session.GUIState;
+import me.eddie.inventoryguiapi.gui.session.InventoryLayout;
 import me.eddie.inventoryguiapi.gui.session.InventoryState;
+import me.eddie.inventoryguiapi.gui.session.PageSnapshot;
+import me.eddie.inventoryguiapi.gui.session.RequestToken;
+import me.eddie.inventoryguiapi.language.GUILanguageManager;
 import me.eddie.inventoryguiapi.plugin.InventoryGUIAPI;
+import me.eddie.inventoryguiapi.util.BukkitExecutors;
 import me.eddie.inventoryguiapi.util.Callback;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * Responsible for Calculating the positions that GUIElements need to go into in the displayed inventory, adding page changing buttons if necessary and then
@@ -25,6 +40,107 @@ import java.util.Map;
  * and make your GUI use your extended version of GUIPopulator.
  */
 public class GUIPopulator {
+    private static final Map<Class<? extends GUIPopulator>, PageButtons> pageButtonsByPopulator = new WeakHashMap<Class<? extends GUIPopulator>, PageButtons>(); //Shared page buttons, each viewer is shown them in their own language
+
+    /**
+     * Default for how long after being calculated that a prefetched page can be shown, in milliseconds
+     */
+    public static final long DEFAULT_MAX_PREFETCH_AGE_MILLIS = 10000;
+
+    private final PageButtons pageButtons = getPageButtons(getClass()); //Generated by this class's page button hooks
+    private final boolean legacyPrevPageButton = overridesLegacyHook(getClass(), "genPrevPageButton");
+    private final boolean legacyNextPageButton = overridesLegacyHook(getClass(), "genNextPageButton");
+    private boolean prefetchAdjacentPages = false;
+    private long maxPrefetchAgeMillis = DEFAULT_MAX_PREFETCH_AGE_MILLIS;
+    private Executor contentsExecutor = BukkitExecutors.direct(); //Runs contents and title generation
+    private Executor applyExecutor = BukkitExecutors.direct(); //Runs layout and applying the results, must be the server thread if contents are generated off of it
+
+    /**
+     * Set the executors used to populate GUIs. Contents and titles are generated using the contents executor, the layout
+     * is then calculated and applied to the GUI's state (And the GUI shown) using the apply executor.
+     * By default both run immediately on the calling thread.
+     * @param contentsExecutor The executor to generate contents and titles with, eg. {@link BukkitExecutors#async(org.bukkit.plugin.Plugin)}
+     * @param applyExecutor The executor to apply results with. This must run work on the server thread if the contents executor doesn't, eg. {@link BukkitExecutors#mainThread(org.bukkit.plugin.Plugin)}
+     */
+    public void setExecutors(Executor contentsExecutor, Executor applyExecutor){
+        if(contentsExecutor == null || applyExecutor == null){
+            throw new IllegalArgumentException("Executors must not be null");
+        }
+        this.contentsExecutor = contentsExecutor;
+        this.applyExecutor = applyExecutor;
+    }
+
+    /**
+     * Get the executor used to generate contents and titles
+     * @return The contents executor
+     */
+    public Executor getContentsExecutor(){
+        return contentsExecutor;
+    }
+
+    /**
+     * Get the executor used to apply the results of generating contents and titles
+     * @return The apply executor
+     */
+    public Executor getApplyExecutor(){
+        return applyExecutor;
+    }
+
+    /**
+     * Set whether or not, after populating a page, the pages before and after it should be calculated ahead of time.
+     * The next/previous page buttons will then show the calculated page straight away instead of calculating it when
+     * clicked. Prefetched pages are discarded whenever a page of the GUIState is recalculated, and aren't shown if they
+     * were calculated longer ago than the max prefetch age (See {@link #setMaxPrefetchAge(long)}).
+     * This only applies to GUIs whose contents provider is a {@link RangedPaginatingGUIContentsProvider}, as other
+     * providers generate every page's contents to get any one page, so prefetching would triple the work of each page
+     * change. Other GUIs can still be prefetched by enabling it for them with {@link GUI#setPrefetchAdjacentPages(boolean)}.
+     * @param prefetchAdjacentPages True if adjacent pages should be calculated ahead of time, False (Default) if not
+     */
+    public void setPrefetchAdjacentPages(boolean prefetchAdjacentPages){
+        this.prefetchAdjacentPages = prefetchAdjacentPages;
+    }
+
+    /**
+     * Whether or not the pages adjacent to a populated page are calculated ahead of time
+     * @return True if adjacent pages are prefetched, False otherwise
+     */
+    public boolean isPrefetchingAdjacentPages(){
+        return prefetchAdjacentPages;
+    }
+
+    /**
+     * Whether or not the pages adjacent to a populated page of the given GUI are calculated ahead of time
+     * @param gui The GUI
+     * @return True if it's enabled for the GUI, or it's enabled for this populator and the GUI's contents provider is a
+     * RangedPaginatingGUIContentsProvider, False otherwise
+     */
+    public boolean isPrefetchingAdjacentPages(InventoryGUI gui){
+        if(!(gui instanceof GUI)){
+            return false; //Only the default GUI implementation can be populated
+        }
+        return ((GUI) gui).isPrefetchingAdjacentPages()
+                || (prefetchAdjacentPages && ((GUI) gui).getContentsProvider() instanceof RangedPaginatingGUIContentsProvider);
+    }
+
+    /**
+     * Set how long after being calculated that a prefetched page can still be shown. Older prefetched pages are
+     * calculated again when they're changed to instead.
+     * @param maxPrefetchAgeMillis The maximum age in milliseconds, or {@link GUIState#ANY_PREFETCH_AGE} for no limit
+     */
+    public void setMaxPrefetchAge(long maxPrefetchAgeMillis){
+        if(maxPrefetchAgeMillis < 0 && maxPrefetchAgeMillis != GUIState.ANY_PREFETCH_AGE){
+            throw new IllegalArgumentException("Max prefetch age must be >= 0");
+        }
+        this.maxPrefetchAgeMillis = maxPrefetchAgeMillis;
+    }
+
+    /**
+     * Get how long after being calculated that a prefetched page can still be shown
+     * @return The maximum age in milliseconds, or {@link GUIState#ANY_PREFETCH_AGE} if there is no limit
+     */
+    public long getMaxPrefetchAgeMillis(){
+        return maxPrefetchAgeMillis;
+    }
 
     /**
      * Gets, via GUI's contents provider, the items a player should be viewing; figures out what slots they should be
@@ -37,76 +153,460 @@ public class GUIPopulator {
         if(session == null || viewer == null){
             throw new IllegalArgumentException();
         }
+        populateGUI(session, viewer, session.beginRequest(), Collections.singleton(viewer), true, callback); //Supersedes any request still in progress for this session
+    }
+
+    /**
+     * Populate the page a session is viewing as part of a request owned by the caller, instead of a new request of the
+     * session. This is for results shared by more than one session, eg. SharedGUI calculating each page once for all of
+     * it's viewers, so that one viewer closing the GUI or changing page doesn't drop the result for the others. The
+     * caller is responsible for cancelling the request once the result is no longer wanted. Adjacent pages aren't
+     * prefetched, the caller can prefetch them with {@link #prefetchAdjacentPages(GUISession, Player, Collection)} once
+     * it's done populating.
+     * @param session The GUISession of the GUI being populated
+     * @param viewer The viewer of the GUISession
+     * @param request The request being populated, the result is dropped if it's cancelled before being applied
+     * @param callback Callback to be called back to on completion
+     */
+    public void populateGUI(final GUISession session, final Player viewer, final RequestToken request, final Callback<Void> callback){
+        if(viewer == null){
+            throw new IllegalArgumentException();
+        }
+        populateGUI(session, viewer, request, Collections.singleton(viewer), callback);
+    }
+
+    /**
+     * Populate the page a session is viewing as part of a request owned by the caller, for a page that will be shown to
+     * more than one viewer. The title is generated for one viewer of each language the viewers use (See
+     * {@link InventoryGUIAPI#getMessageLocale(Player)}), so each of them can be shown it in their own language.
+     * Adjacent pages aren't prefetched, the caller can prefetch them with
+     * {@link #prefetchAdjacentPages(GUISession, Player, Collection)} once it's done populating.
+     * @param session The GUISession of the GUI being populated
+     * @param viewer The viewer of the GUISession, which the contents are generated for
+     * @param request The request being populated, the result is dropped if it's cancelled before being applied
+     * @param viewers Every player the page will be shown to
+     * @param callback Callback to be called back to on completion
+     */
+    public void populateGUI(final GUISession session, final Player viewer, final RequestToken request, Collection<Player> viewers, final Callback<Void> callback){
+        populateGUI(session, viewer, request, viewers, false, callback);
+    }
+
+    private void populateGUI(final GUISession session, final Player viewer, final RequestToken request, Collection<Player> viewers,
+                             final boolean prefetch, final Callback<Void> callback){
+        if(session == null || viewer == null || request == null || viewers == null){
+            throw new IllegalArgumentException();
+        }
         InventoryGUI iGui = session.getInventoryGUI();
         if(!(iGui instanceof GUI)){
             throw new IllegalArgumentException("The default GUIPopulator can only be used with the default GUI implementation");
         }
         final GUI gui = (GUI) iGui;
         final int page = session.getPage();
-        final GUIContentsProvider contentsProvider = gui.getContentsProvider();
-        contentsProvider.genContents(viewer, page, session, new Callback<GUIContentsProvider.GUIContentsResponse>() {
+        final InventoryState inventoryState = session.getGUIState().getOrCreateInventoryState(page);
+        final Map<Locale, Player> titleViewers = getTitleViewers(viewer, viewers);
+        populatePage(gui, session, viewer, titleViewers, page, request, inventoryState, new Callback<Void>() {
             @Override
-            public void call(GUIContentsProvider.GUIContentsResponse contents) {
-                Map<Integer, GUIElement> positions = new HashMap<Integer, GUIElement>();
-                int maxSize = gui.getMaximumGUISize();
-                if(page > 1 || contents.hasNextPage()){ //If this GUI should have page-changing controls
-                    ActionItem prevPageButton = genPrevPageButton(gui, session);
-                    prevPageButton.setDesiredDisplayPosition(maxSize-2);
-
-                    ActionItem nextPageButton = genNextPageButton(gui, session);
-                    nextPageButton.setDesiredDisplayPosition(maxSize-1);
-
-                    positions.put(prevPageButton.getDesiredDisplayPosition(), prevPageButton);
-                    positions.put(nextPageButton.getDesiredDisplayPosition(), nextPageButton);
-                    maxSize -= 2; //Make room for next/prev page buttons
-                }
-                List<GUIElement> elements = new ArrayList<GUIElement>(contents.getElements()); //Clone as we will be removing items from this list as we go
-
-                //Place first the GUIElements that has desired positions
-                for(GUIElement elem:new ArrayList<GUIElement>(elements)){ //Iterate over cloned list since we are modifying it during the iteration (And not doing this would cause a concurrent modification exception)
-                    if(elem.hasDesiredDisplayPosition() && elem.getDesiredDisplayPosition() < maxSize
-                            && !positions.containsKey(elem.getDesiredDisplayPosition())){ //If this element has a desired position and it isn't taken
-                        positions.put(elem.getDesiredDisplayPosition(), elem); //Place it into it's desired position
-                        elements.remove(elem); //Remove element from list so that list only contains unplaced elements
-                    }
+            public void call(Void param) {
+                session.getGUIState().updateInventoryState(page, inventoryState);
+                session.getGUIState().clearPrefetchedInventoryStates(); //Discard anything prefetched, it's older than what we just calculated
+                callback.call(null);
+                if(prefetch && isPrefetchingAdjacentPages(gui)){
+                    prefetchAdjacentPages(gui, session, viewer, titleViewers);
                 }
+            }
+        });
+    }
 
-                //Place all the other GUIElements
-                int vacantSlot = 0;
-                topLoop:for(GUIElement element:new ArrayList<GUIElement>(elements)){ //Iterate over cloned list since we are modifying it during the iteration (And not doing this would cause a concurrent modification exception)
-                    while(positions.containsKey(vacantSlot)){
-                        vacantSlot++;
-                        if(vacantSlot >= maxSize){
-                            break topLoop; //Impossible to fit all the remaining GUIElements onto the page, so give up
-                        }
+    //Get one of the viewers using each language, starting with the given viewer's, to generate titles for
+    private static Map<Locale, Player> getTitleViewers(Player viewer, Collection<Player> viewers){
+        Map<Locale, Player> titleViewers = new LinkedHashMap<Locale, Player>();
+        titleViewers.put(InventoryGUIAPI.getMessageLocale(viewer), viewer);
+        for(Player pl:viewers){
+            Locale locale = InventoryGUIAPI.getMessageLocale(pl);
+            if(!titleViewers.containsKey(locale)){
+                titleViewers.put(locale, pl);
+            }
+        }
+        return titleViewers;
+    }
+
+    //Calculate the contents and layout of a page, and it's title in the language of each of the title viewers, into the given InventoryState.
+    //Nothing is changed, and the callback isn't called, if the request is cancelled before it completes
+    private void populatePage(final GUI gui, final GUISession session, final Player viewer, final Map<Locale, Player> titleViewers, final int page,
+                              final RequestToken request, final InventoryState inventoryState, final Callback<Void> callback){
+        final GUIContentsProvider contentsProvider = gui.getContentsProvider();
+        final boolean titleAfterContents = contentsProvider instanceof ContentsDependentTitleProvider
+                && ((ContentsDependentTitleProvider) contentsProvider).isTitleDependentOnContents();
+        final Locale viewerLocale = titleViewers.keySet().iterator().next();
+        final PendingPage pending = new PendingPage(titleViewers.size()); //Joins the contents and titles, whichever finishes last applies them
+
+        final Runnable genTitle = new Runnable() {
+            @Override
+            public void run() {
+                for(final Map.Entry<Locale, Player> titleViewer:titleViewers.entrySet()){
+                    if(request.isCancelled()){
+                        return; //No longer wanted
                     }
-                    positions.put(vacantSlot, element); //Place this element in the vacant slot
-                    vacantSlot++; //Not strictly necessary but skips the containsKey check next iteration
-                    elements.remove(element);
+                    contentsProvider.genTitle(titleViewer.getValue(), page, session, new Callback<String>() {
+                        @Override
+                        public void call(String title) {
+                            if(!request.isCancelled() && pending.setTitle(titleViewer.getKey(), title)){
+                                applyPage(gui, session, viewer, viewerLocale, page, request, inventoryState, pending, callback);
+                            }
+                        }
+                    });
                 }
+            }
+        };
 
-                if(elements.size() > 0){
-                    InventoryGUIAPI.getInstance().getLogger().warning(elements.size()+" GUIElements were unable to be placed into a GUI. The following stack trace should help you find what went wrong");
-                    new Exception().printStackTrace();
+        contentsExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if(request.isCancelled()){
+                    return; //No longer wanted before we even started
                 }
-
-                final InventoryState inventoryState = session.getGUIState().getOrCreateInventoryState(page);
-                inventoryState.setComputedContentsBySlot(positions);
-                inventoryState.setHasNextPage(contents.hasNextPage());
-                contentsProvider.genTitle(viewer, page, session, new Callback<String>() {
+                contentsProvider.genContents(viewer, page, session, new Callback<GUIContentsProvider.GUIContentsResponse>() {
                     @Override
-                    public void call(String title) {
-                        if(title.length() > GUIContentsProvider.MAX_TITLE_LENGTH){ //If the title is too long
-                            InventoryGUIAPI.getInstance().getLogger().warning("GUI title longer than maximum length ("+ GUIContentsProvider.MAX_TITLE_LENGTH+"):"+title+"! It has been truncated!");
-                            title = title.substring(0, GUIContentsProvider.MAX_TITLE_LENGTH);
+                    public void call(GUIContentsProvider.GUIContentsResponse contents) {
+                        if(request.isCancelled()){
+                            return; //Result is no longer wanted
+                        }
+                        if(titleAfterContents){
+                            pending.setContents(contents);
+                            contentsExecutor.execute(genTitle); //The provider may have called back on any thread, so make sure the title is generated where it should be
+                        }
+                        else if(pending.setContents(contents)){
+                            applyPage(gui, session, viewer, viewerLocale, page, request, inventoryState, pending, callback);
                         }
-                        inventoryState.setTitle(title);
-                        session.getGUIState().updateInventoryState(page, inventoryState);
-                        callback.call(null);
                     }
                 });
             }
         });
+        if(!titleAfterContents){
+            contentsExecutor.execute(genTitle); //Generate the title at the same time as the contents
+        }
+    }
+
+    //The results of generating a page, which may arrive in any order and on any thread
+    private static class PendingPage {
+        private final int titleCount;
+        private GUIContentsProvider.GUIContentsResponse contents = null;
+        private final Map<Locale, String> titles = new HashMap<Locale, String>(); //HashMap as the locale may be null
+        private boolean hasContents = false;
+
+        private PendingPage(int titleCount){
+            this.titleCount = titleCount;
+        }
+
+        //Returns true if this completed the page
+        private synchronized boolean setContents(GUIContentsProvider.GUIContentsResponse contents){
+            if(hasContents){
+                return false; //Already called back
+            }
+            this.contents = contents;
+            this.hasContents = true;
+            return titles.size() == titleCount;
+        }
+
+        //Returns true if this completed the page
+        private synchronized boolean setTitle(Locale locale, String title){
+            if(titles.containsKey(locale)){
+                return false; //Already called back
+            }
+            titles.put(locale, title);
+            return hasContents && titles.size() == titleCount;
+        }
+    }
+
+    //Using the apply executor, lay out the calculated contents and titles of a page and update the given InventoryState with them
+    private void applyPage(final GUI gui, final GUISession session, final Player viewer, final Locale viewerLocale, final int page, final RequestToken request,
+                           final InventoryState inventoryState, final PendingPage pending, final Callback<Void> callback){
+        applyExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                GUIContentsProvider.GUIContentsResponse contents;
+                Map<Locale, String> titles;
+                synchronized (pending){ //Make sure we see the results set by other threads
+                    contents = pending.contents;
+                    titles = new HashMap<Locale, String>(pending.titles);
+                }
+                applyPage(gui, session, viewer, viewerLocale, page, request, inventoryState, contents, titles, callback);
+            }
+        });
+    }
+
+    private void applyPage(GUI gui, GUISession session, Player viewer, Locale viewerLocale, int page, RequestToken request, InventoryState inventoryState,
+                           GUIContentsProvider.GUIContentsResponse contents, Map<Locale, String> titles, Callback<Void> callback){
+        if(request.isCancelled()){
+            return; //Result is no longer wanted
+        }
+        InventoryLayout layout = computeLayout(gui, session, viewer, page, contents);
+        for(Map.Entry<Locale, String> title:titles.entrySet()){
+            if(title.getValue().length() > GUIContentsProvider.MAX_TITLE_LENGTH){ //If the title is too long
+                InventoryGUIAPI.getInstance().getLogger().warning("GUI title longer than maximum length ("+ GUIContentsProvider.MAX_TITLE_LENGTH+"):"+title.getValue()+"! It has been truncated!");
+                title.setValue(title.getValue().substring(0, GUIContentsProvider.MAX_TITLE_LENGTH));
+            }
+        }
+        //Only update the state once everything is calculated, so a cancelled request never leaves it half updated
+        inventoryState.setSnapshot(new PageSnapshot(layout, titles.get(viewerLocale), titles.size() > 1 ? titles : Collections.<Locale, String>emptyMap(),
+                contents.hasNextPage())); //Other languages fall back to the viewer's title
+        callback.call(null);
+    }
+
+    /**
+     * Calculate, on a later tick, the pages before and after the page the session is viewing and store them in the
+     * session's GUIState as prefetched pages. Nothing is calculated if the session has changed page by then.
+     * @param session The GUISession to prefetch the adjacent pages of
+     * @param viewer The viewer of the GUISession
+     */
+    public void prefetchAdjacentPages(final GUISession session, final Player viewer){
+        if(viewer == null){
+            throw new IllegalArgumentException();
+        }
+        prefetchAdjacentPages(session, viewer, Collections.singleton(viewer));
+    }
+
+    /**
+     * Calculate, on a later tick, the pages before and after the page the session is viewing, for a page shown to more
+     * than one viewer, and store them in the session's GUIState as prefetched pages. Their titles are generated in the
+     * language of each of the viewers, the same as {@link #populateGUI(GUISession, Player, RequestToken, Collection, Callback)}.
+     * @param session The GUISession to prefetch the adjacent pages of
+     * @param viewer The viewer of the GUISession, which the contents are generated for
+     * @param viewers Every player the pages may be shown to
+     */
+    public void prefetchAdjacentPages(final GUISession session, final Player viewer, Collection<Player> viewers){
+        if(session == null || viewer == null || viewers == null){
+            throw new IllegalArgumentException();
+        }
+        InventoryGUI iGui = session.getInventoryGUI();
+        if(!(iGui instanceof GUI)){
+            return; //Only the default GUI implementation can be populated
+        }
+        prefetchAdjacentPages((GUI) iGui, session, viewer, getTitleViewers(viewer, viewers));
+    }
+
+    //Prefetch the pages adjacent to the session's page, with their titles in the language of each of the title viewers
+    private void prefetchAdjacentPages(final GUI gui, final GUISession session, final Player viewer, final Map<Locale, Player> titleViewers){
+        final int page = session.getPage();
+        Bukkit.getScheduler().runTaskLater(InventoryGUIAPI.getInstance(), new Runnable() { //Spread the work out instead of doing it in the same tick as the page being shown
+            @Override
+            public void run() {
+                if(session.getPage() != page){
+                    return; //They've moved on since, so these aren't the adjacent pages anymore
+                }
+                InventoryState current = session.getGUIState().getExistingInventoryState(page);
+                if(current != null && current.hasNextPage()){
+                    prefetchPage(gui, session, viewer, titleViewers, page+1);
+                }
+                if(page > 1){
+                    prefetchPage(gui, session, viewer, titleViewers, page-1);
+                }
+            }
+        }, 1L);
+    }
+
+    //Calculate a page into a new InventoryState and store it as prefetched
+    private void prefetchPage(GUI gui, final GUISession session, Player viewer, Map<Locale, Player> titleViewers, final int page){
+        final InventoryState prefetched = new InventoryState();
+        final RequestToken request = session.getGUIState().beginPrefetchRequest(page); //Cancelled if the GUIState's pages are recalculated, or nobody is left viewing it
+        populatePage(gui, session, viewer, titleViewers, page, request, prefetched, new Callback<Void>() {
+            @Override
+            public void call(Void param) {
+                session.getGUIState().putPrefetchedInventoryState(page, prefetched, request);
+            }
+        });
+    }
+
+    /**
+     * Show a viewer the page their session is now on using a prefetched InventoryState, if one exists for it.
+     * The pages adjacent to it will then be prefetched.
+     * @param gui The GUI being viewed
+     * @param session The GUISession of the viewer, already set to the page to show
+     * @param viewer The viewer
+     * @return True if the page was shown, False if nothing recent enough was prefetched for the page and so it needs to be populated
+     */
+    public boolean showPrefetchedPage(InventoryGUI gui, GUISession session, Player viewer){
+        int page = session.getPage();
+        InventoryState prefetched = session.getGUIState().takePrefetchedInventoryState(page, maxPrefetchAgeMillis);
+        if(prefetched == null){
+            return false;
+        }
+        session.beginRequest(); //Supersedes any request still calculating the page they were on, the same as populating this one would
+        InventoryState inventoryState = session.getGUIState().getOrCreateInventoryState(page); //Copy into the existing state, so anything else kept by it stays
+        inventoryState.setSnapshot(prefetched.getSnapshot());
+        if(gui instanceof GUI){
+            ((GUI) gui).showCalculatedPage(viewer, session); //Remembered for placeholders the same as a populated page
+        }
+        else {
+            gui.updateView(viewer);
+        }
+        if(isPrefetchingAdjacentPages(gui)){
+            prefetchAdjacentPages(session, viewer);
+        }
+        return true;
+    }
+
+    /**
+     * Figure out what slot each of the GUIElements of a page should be displayed in. Page changing buttons are added in
+     * the last two slots if needed, then elements with a desired position are placed there if it's free and then all
+     * other elements are placed into the first free slots.
+     * @param gui The GUI being populated
+     * @param session The GUISession of the GUI being populated
+     * @param viewer The player the page is being populated for
+     * @param page The page being populated
+     * @param contents The contents of the page
+     * @return The computed layout of the page
+     */
+    protected InventoryLayout computeLayout(GUI gui, GUISession session, Player viewer, int page, GUIContentsProvider.GUIContentsResponse contents){
+        int maxSize = gui.getMaximumGUISize();
+        GUIElement[] positions = new GUIElement[maxSize];
+        BitSet occupied = new BitSet(maxSize); //Slots that have already been taken
+        if(page > 1 || contents.hasNextPage()){ //If this GUI should have page-changing controls
+            positions[maxSize-2] = pageButtons.prevPageButton; //Positioned by the layout, not by their desired positions, as they're shared
+            positions[maxSize-1] = pageButtons.nextPageButton;
+            occupied.set(maxSize-2, maxSize);
+            maxSize -= 2; //Make room for next/prev page buttons
+        }
+        List<GUIElement> elements = contents.getElements();
+        boolean[] placed = new boolean[elements.size()]; //Which elements have been placed, by index
+
+        //Place first the GUIElements that has desired positions
+        int index = 0;
+        for(GUIElement elem:elements){
+            int desired = elem.getDesiredDisplayPosition();
+            if(elem.hasDesiredDisplayPosition() && desired < maxSize && !occupied.get(desired)){ //If this element has a desired position and it isn't taken
+                positions[desired] = elem; //Place it into it's desired position
+                occupied.set(desired);
+                placed[index] = true;
+            }
+            index++;
+        }
+
+        //Place all the other GUIElements
+        int unplaced = 0;
+        int vacantSlot = occupied.nextClearBit(0);
+        index = 0;
+        for(GUIElement elem:elements){
+            if(!placed[index]){
+                if(vacantSlot < maxSize){
+                    positions[vacantSlot] = elem; //Place this element in the vacant slot
+                    occupied.set(vacantSlot);
+                    vacantSlot = occupied.nextClearBit(vacantSlot+1);
+                }
+                else {
+                    unplaced++; //Impossible to fit the remaining GUIElements onto the page
+                }
+            }
+            index++;
+        }
+
+        if(unplaced > 0){
+            InventoryGUIAPI.getInstance().getLogger().warning(unplaced+" GUIElements were unable to be placed into a GUI. The following stack trace should help you find what went wrong");
+            new Exception().printStackTrace();
+        }
+        return new InventoryLayout(positions);
+    }
+
+    //Get the page buttons shown by populators of a class, creating them if they don't exist yet
+    private static PageButtons getPageButtons(Class<? extends GUIPopulator> populatorClass){
+        synchronized (pageButtonsByPopulator){
+            PageButtons buttons = pageButtonsByPopulator.get(populatorClass);
+            if(buttons == null){
+                buttons = new PageButtons();
+                pageButtonsByPopulator.put(populatorClass, buttons);
+            }
+            return buttons;
+        }
+    }
+
+    //The page buttons shown by populators of a class
+    private static class PageButtons {
+        private final PageButton prevPageButton = new PageButton(-1);
+        private final PageButton nextPageButton = new PageButton(1);
+    }
+
+    //A page changing button that can be shared between viewers and GUIs, as it shows each viewer the button generated for their language
+    private static class PageButton extends AbstractGUIElement {
+        private final int pageChange;
+        private final Map<GUILanguageManager, LocalizedButton> buttonsByLanguage = new WeakHashMap<GUILanguageManager, LocalizedButton>();
+
+        private PageButton(int pageChange){
+            this.pageChange = pageChange;
+        }
+
+        //Get the button for the viewer's language, generating it with the GUI's populator if it doesn't exist yet
+        private ActionItem getButton(Player viewer, GUISession session){
+            GUILanguageManager languageManager = InventoryGUIAPI.getLanguageManager(viewer);
+            synchronized (buttonsByLanguage){
+                LocalizedButton button = buttonsByLanguage.get(languageManager);
+                if(button != null && button.locale != null && button.locale.equals(languageManager.getPreferredLocale())){
+                    return button.button;
+                }
+            }
+            InventoryGUI gui = session.getInventoryGUI();
+            ActionItem generated; //Generated without holding the lock, as it may be overridden to do anything
+            if(gui instanceof GUI){
+                GUIPopulator populator = ((GUI) gui).getGuiPopulator();
+                generated = pageChange < 0 ? populator.genPrevPageButton(gui, session, languageManager)
+                        : populator.genNextPageButton(gui, session, languageManager);
+            }
+            else {
+                generated = pageChange < 0 ? createPrevPageButton(languageManager) : createNextPageButton(languageManager);
+            }
+            synchronized (buttonsByLanguage){
+                LocalizedButton button = buttonsByLanguage.get(languageManager);
+                if(button == null || button.locale == null || !button.locale.equals(languageManager.getPreferredLocale())){ //Not generated by someone else meanwhile
+                    button = new LocalizedButton(languageManager.getPreferredLocale(), generated);
+                    buttonsByLanguage.put(languageManager, button);
+                }
+                return button.button;
+            }
+        }
+
+        @Override
+        public void onEvent(GUIEvent event) {
+            if(event instanceof GUIClickEvent){
+                GUIClickEvent e = (GUIClickEvent) event;
+                getButton(e.getViewer(), e.getSession()).onEvent(event); //Behaves like the button they were shown
+            }
+        }
+
+        @Override
+        public ItemStack getDisplay(Player viewer, GUISession session) {
+            return getButton(viewer, session).getDisplayItem();
+        }
+
+        @Override
+        public boolean canAutoInsertIntoSlot(Player viewer, GUISession session) {
+            return false;
+        }
+    }
+
+    //The button generated for a language
+    private static class LocalizedButton {
+        private final Locale locale; //So we notice if the language manager is changed to a different locale
+        private final ActionItem button;
+
+        private LocalizedButton(Locale locale, ActionItem button){
+            this.locale = locale;
+            this.button = button;
+        }
+    }
+
+    /**
+     * Generate a new previous page button for viewers using a language. Page buttons are generated once for each class of
+     * GUIPopulator and language, the first time they're shown in that language, and then shown in every GUI using that
+     * class of GUIPopulator. So the button should only depend on the language manager and must not be modified afterwards.
+     * @param gui The GUI the button is first being shown in
+     * @param session The Session the button is first being shown in
+     * @param languageManager The language manager of the viewers the button is for
+     * @return An ActionItem, without desired position, that when clicked will go back a page in the GUI it's clicked in
+     */
+    public ActionItem genPrevPageButton(InventoryGUI gui, GUISession session, GUILanguageManager languageManager){
+        if(legacyPrevPageButton){
+            return genPrevPageButton(gui, session); //Overridden before buttons were generated per language
+        }
+        return createPrevPageButton(languageManager);
     }
 
     /**
@@ -114,24 +614,38 @@ public class GUIPopulator {
      * @param gui The GUI to generate it for
      * @param session The Session to generate it for
      * @return An ActionItem, without desired position, that when clicked will go back a page in the GUI
+     * @deprecated Page buttons are generated for each language, override {@link #genPrevPageButton(InventoryGUI, GUISession, GUILanguageManager)}
+     * instead. If this is overridden it's still used, but the button it returns is cached and shown to viewers of every language.
      */
+    @Deprecated
     public ActionItem genPrevPageButton(final InventoryGUI gui, final GUISession session){
+        return createPrevPageButton(InventoryGUIAPI.getLanguageManager());
+    }
+
+    private static ActionItem createPrevPageButton(GUILanguageManager languageManager){
         //Create back button display item
         ItemStack prevPageDisplay = GUIElementFactory.formatItem(
                 new ItemStack(Material.PAPER),
-                InventoryGUIAPI.getLanguageManager().getString("gui.button.prevPage.name"),
-                InventoryGUIAPI.getLanguageManager().getString("gui.button.prevPage.lore"));
+                languageManager.getString("gui.button.prevPage.name"),
+                languageManager.getString("gui.button.prevPage.lore"));
 
-        return new ActionItem(prevPageDisplay, new ActionItem.ActionHandler() {
-            @Override
-            public void onClick(GUIClickEvent event) {
-                int newPage = event.getSession().getPage() -1;
-                if(newPage > 0) { //if a previous page exists
-                    event.getSession().setPage(newPage); //Change the page being viewed
-                    gui.updateContentsAndView(event.getViewer()); //Update the view
-                }
-            }
-        });
+        return new ActionItem(prevPageDisplay, new PageButtonHandler(-1));
+    }
+
+    /**
+     * Generate a new next page button for viewers using a language. Page buttons are generated once for each class of
+     * GUIPopulator and language, the first time they're shown in that language, and then shown in every GUI using that
+     * class of GUIPopulator. So the button should only depend on the language manager and must not be modified afterwards.
+     * @param gui The GUI the button is first being shown in
+     * @param session The Session the button is first being shown in
+     * @param languageManager The language manager of the viewers the button is for
+     * @return An ActionItem, without desired position, that when clicked will go forward a page in the GUI it's clicked in
+     */
+    public ActionItem genNextPageButton(InventoryGUI gui, GUISession session, GUILanguageManager languageManager){
+        if(legacyNextPageButton){
+            return genNextPageButton(gui, session); //Overridden before buttons were generated per language
+        }
+        return createNextPageButton(languageManager);
     }
 
     /**
@@ -139,25 +653,62 @@ public class GUIPopulator {
      * @param gui The GUI to generate it for
      * @param session The Session to generate it for
      * @return An ActionItem, without desired position, that when clicked will go forward a page in the GUI
+     * @deprecated Page buttons are generated for each language, override {@link #genNextPageButton(InventoryGUI, GUISession, GUILanguageManager)}
+     * instead. If this is overridden it's still used, but the button it returns is cached and shown to viewers of every language.
      */
+    @Deprecated
     public ActionItem genNextPageButton(final InventoryGUI gui, final GUISession session){
+        return createNextPageButton(InventoryGUIAPI.getLanguageManager());
+    }
+
+    private static ActionItem createNextPageButton(GUILanguageManager languageManager){
         //Create next button display item
         ItemStack nextPageDisplay = GUIElementFactory.formatItem(
                 new ItemStack(Material.PAPER),
-                InventoryGUIAPI.getLanguageManager().getString("gui.button.nextPage.name"),
-                InventoryGUIAPI.getLanguageManager().getString("gui.button.nextPage.lore"));
+                languageManager.getString("gui.button.nextPage.name"),
+                languageManager.getString("gui.button.nextPage.lore"));
 
-        return new ActionItem(nextPageDisplay, new ActionItem.ActionHandler() {
-            @Override
-            public void onClick(GUIClickEvent event) {
-                int page = event.getSession().getPage();
-                InventoryState inventoryState = event.getSession().getGUIState().getExistingInventoryState(page);
-                if(inventoryState != null && inventoryState.hasNextPage()) { //If a next page exists
-                    int newPage = page + 1;
-                    event.getSession().setPage(newPage); //Change the page being viewed
-                    gui.updateContentsAndView(event.getViewer()); //Update the view
+        return new ActionItem(nextPageDisplay, new PageButtonHandler(1));
+    }
+
+    //Whether or not a class of GUIPopulator overrides a deprecated page button hook
+    private static boolean overridesLegacyHook(Class<?> populatorClass, String name){
+        try {
+            return populatorClass.getMethod(name, InventoryGUI.class, GUISession.class).getDeclaringClass() != GUIPopulator.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    //Changes the page of whatever session it's clicked in, so can be shared between GUIs
+    private static class PageButtonHandler implements ActionItem.ActionHandler {
+        private final int pageChange;
+
+        private PageButtonHandler(int pageChange){
+            this.pageChange = pageChange;
+        }
+
+        @Override
+        public void onClick(GUIClickEvent event) {
+            GUISession session = event.getSession();
+            int page = session.getPage();
+            if(pageChange > 0){
+                InventoryState inventoryState = session.getGUIState().getExistingInventoryState(page);
+                if(inventoryState == null || !inventoryState.hasNextPage()) {
+                    return; //No next page exists
                 }
             }
-        });
+            int newPage = page + pageChange;
+            if(newPage < 1){
+                return; //No previous page exists
+            }
+            session.setPage(newPage); //Change the page being viewed
+
+            InventoryGUI gui = session.getInventoryGUI();
+            if(gui instanceof GUI && ((GUI) gui).getGuiPopulator().showPrefetchedPage(gui, session, event.getViewer())){
+                return; //Shown straight away as it had already been calculated
+            }
+            gui.updateContentsAndView(event.getViewer()); //Update the view
+        }
     }
 }
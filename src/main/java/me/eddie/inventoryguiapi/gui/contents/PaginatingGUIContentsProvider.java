@@ -1,7 +1,8 @@
 package me.eddie.inventoryguiapi.gui.contents;
 
 import me.eddie.inventoryguiapi.gui.elements.GUIElement;
-import me.eddie.inventoryguiapi.gui.guis.InventoryGUI;
+import me.eddie.inventoryguiapi.gui.guis.InventoryGUI;
+import me.eddie.inventoryguiapi.gui.session.AttributeKey;
 import me.eddie.inventoryguiapi.gui.session.GUISession;
 import me.eddie.inventoryguiapi.gui.session.GUIState;
 import me.eddie.inventoryguiapi.plugin.InventoryGUIAPI;
@@ -18,9 +19,9 @@ import java.util.List;
  * this is due to a limitation in the Bukkit API and/or Minecraft.
  *
  */
-public abstract class PaginatingGUIContentsProvider implements GUIContentsProvider {
+public abstract class PaginatingGUIContentsProvider implements GUIContentsProvider, ContentsDependentTitleProvider {
 
-    private static final String PAGE_COUNT_ATTRIBUTE = "gui.pageCount";
+    private static final AttributeKey<Integer> PAGE_COUNT_ATTRIBUTE = AttributeKey.of("gui.pageCount", Integer.class);
 
     /**
      * Calculate the GUIElements to display in this GUI.
@@ -52,19 +53,29 @@ public abstract class PaginatingGUIContentsProvider implements GUIContentsProvid
      */
     public abstract boolean showPageCountInTitle();
 
-    private void setPageCountAttribute(GUIState guiState, int pageCount){
+    /**
+     * Record the amount of pages the GUI has, so that it can be shown in the title
+     * @param guiState The GUIState of the GUI
+     * @param pageCount The amount of pages
+     */
+    protected void setPageCountAttribute(GUIState guiState, int pageCount){
         if(guiState != null){
             guiState.putAttribute(PAGE_COUNT_ATTRIBUTE, pageCount);
         }
     }
 
-    private int getPageCount(GUIState guiState){
+    /**
+     * Get the amount of pages the GUI was last calculated to have
+     * @param guiState The GUIState of the GUI
+     * @return The amount of pages, or -1 if unknown
+     */
+    protected int getPageCount(GUIState guiState){
         if(guiState != null){
-            Object o = guiState.getAttribute(PAGE_COUNT_ATTRIBUTE);
-            if(o == null){
+            Integer pageCount = guiState.getAttribute(PAGE_COUNT_ATTRIBUTE);
+            if(pageCount == null){
                 return -1;
             }
-            return (int) o;
+            return pageCount;
         }
         return -1;
     }
@@ -77,13 +88,12 @@ public abstract class PaginatingGUIContentsProvider implements GUIContentsProvid
         genContents(viewer, session, new Callback<List<GUIElement>>() {
             @Override
             public void call(List<GUIElement> elements) {
-                elements = new ArrayList<GUIElement>(elements); //Use a copy of the list so that the list they're given us is not modified
                 InventoryGUI gui = session.getInventoryGUI();
                 int maxSize = gui.getMaximumGUISize();
                 if(elements.size() <= maxSize){
                     setPageCountAttribute(session.getGUIState(), 1);
                     if(page == 1) {
-                        callback.call(GUIContentsResponse.create(false, elements));
+                        callback.call(GUIContentsResponse.create(false, new ArrayList<GUIElement>(elements))); //Use a copy of the list so that the list they've given us is not modified
                     }
                     else {
                         callback.call(GUIContentsResponse.create(false, new ArrayList<GUIElement>()));
@@ -101,15 +111,25 @@ public abstract class PaginatingGUIContentsProvider implements GUIContentsProvid
                     return;
                 }
 
-                List<GUIElement> elementsToDisplay = elements.subList(startIndex, endIndex);
+                List<GUIElement> elementsToDisplay = new ArrayList<GUIElement>(elements.subList(startIndex, endIndex)); //Only copy the page being displayed
                 boolean hasNextPage = endIndex < elements.size(); //If the end of our sublist isn't the end of the complete list
                 callback.call(GUIContentsResponse.create(hasNextPage, elementsToDisplay));
             }
         });
     }
 
+    /**
+     * The page count shown in the title is calculated when generating the contents, so if it is shown the title
+     * must be generated after the contents
+     * @return True if the page count is shown in the title, False otherwise
+     */
+    @Override
+    public boolean isTitleDependentOnContents() {
+        return showPageCountInTitle();
+    }
+
     @Override
-    public void genTitle(Player viewer, final int page, final GUISession session, final Callback<String> callback) {
+    public void genTitle(final Player viewer, final int page, final GUISession session, final Callback<String> callback) {
         genBaseTitle(viewer, session, new Callback<String>() {
             @Override
             public void call(String base) {
@@ -120,15 +140,15 @@ public abstract class PaginatingGUIContentsProvider implements GUIContentsProvid
                 }
                 int pageCount = getPageCount(session.getGUIState());
                 if(showPageCountInTitle() && !showPageNumberInTitle()){ //Just count
-                    callback.call(InventoryGUIAPI.getLanguageManager().getFormattedString("gui.title.withPageCount", base, pageCount));
+                    callback.call(InventoryGUIAPI.getLanguageManager(viewer).getFormattedTitle("gui.title.withPageCount", base, pageCount));
                     return;
                 }
                 else if(!showPageCountInTitle() && showPageNumberInTitle()){ //Just page number
-                    callback.call(InventoryGUIAPI.getLanguageManager().getFormattedString("gui.title.withPageNumber", base, page));
+                    callback.call(InventoryGUIAPI.getLanguageManager(viewer).getFormattedTitle("gui.title.withPageNumber", base, page));
                     return;
                 }
                 //Must therefore want both page count and page number
-                callback.call(InventoryGUIAPI.getLanguageManager().getFormattedString("gui.title.withPageNumberAndCount", base, page, pageCount));
+                callback.call(InventoryGUIAPI.getLanguageManager(viewer).getFormattedTitle("gui.title.withPageNumberAndCount", base, page, pageCount));
                 return;
             }
         });
@@ -0,0 +1,102 @@
+package me.eddie.inventoryguiapi.gui.contents;
+
+import me.eddie.inventoryguiapi.gui.elements.GUIElement;
+import me.eddie.inventoryguiapi.gui.guis.InventoryGUI;
+import me.eddie.inventoryguiapi.gui.session.GUISession;
+import me.eddie.inventoryguiapi.util.Callback;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An extension of PaginatingGUIContentsProvider for when there are a lot of GUIElements to paginate. Instead of being asked
+ * for every GUIElement, implementations are asked for how many there are in total and then only for the range of them
+ * that is visible on the page being viewed. To use this, extend the class.
+ */
+public abstract class RangedPaginatingGUIContentsProvider extends PaginatingGUIContentsProvider {
+
+    /**
+     * Calculate the total amount of GUIElements this GUI has to display, across all pages.
+     * Once calculated the result should be passed to the provided callback.
+     * If the callback isn't called then the GUI will not work properly.
+     * @param viewer The viewer of this inventory. In the case of a GUI with multiple viewers (SharedInventoryGUI) this will be whatever viewer caused this method to be called
+     * @param session The GUISession being viewed
+     * @param callback The callback to pass the response to. If the callback isn't called then the GUI will not work properly. Use the {@link me.eddie.inventoryguiapi.util.Callback#call(Object)} method of the callback.
+     */
+    public abstract void genContentsCount(Player viewer, GUISession session, Callback<Integer> callback);
+
+    /**
+     * Calculate a range of the GUIElements to display in this GUI, in the same order as they should be displayed.
+     * Once calculated the result (a List of at most limit GUIElements) should be passed to the provided callback.
+     * If the callback isn't called then the GUI will not work properly.
+     * @param viewer The viewer of this inventory. In the case of a GUI with multiple viewers (SharedInventoryGUI) this will be whatever viewer caused this method to be called
+     * @param session The GUISession being viewed
+     * @param offset The index of the first GUIElement to calculate
+     * @param limit The maximum amount of GUIElements to calculate
+     * @param callback The callback to pass the response to. If the callback isn't called then the GUI will not work properly. Use the {@link me.eddie.inventoryguiapi.util.Callback#call(Object)} method of the callback.
+     */
+    public abstract void genContents(Player viewer, GUISession session, int offset, int limit, Callback<List<GUIElement>> callback);
+
+    /**
+     * Calculate every GUIElement to display in this GUI, by asking for the range covering all of them.
+     * This isn't used when displaying the GUI, only the visible range is calculated then.
+     * @param viewer The viewer of this inventory
+     * @param session The GUISession being viewed
+     * @param callback The callback to pass the response to
+     */
+    @Override
+    public void genContents(final Player viewer, final GUISession session, final Callback<List<GUIElement>> callback) {
+        genContentsCount(viewer, session, new Callback<Integer>() {
+            @Override
+            public void call(Integer count) {
+                genContents(viewer, session, 0, count == null ? 0 : Math.max(count, 0), callback); //A null count is no elements, the same as when paginating
+            }
+        });
+    }
+
+    @Override
+    public void genContents(final Player viewer, final int page, final GUISession session, final Callback<GUIContentsResponse> callback) {
+        if(viewer == null || page < 1 || session == null || callback == null){
+            throw new IllegalArgumentException("Invalid arguments");
+        }
+        genContentsCount(viewer, session, new Callback<Integer>() {
+            @Override
+            public void call(Integer count) {
+                final int total = count == null ? 0 : Math.max(count, 0);
+                InventoryGUI gui = session.getInventoryGUI();
+                int maxSize = gui.getMaximumGUISize();
+                int startIndex;
+                final int endIndex; //Exclusive bound
+                if(total <= maxSize){
+                    setPageCountAttribute(session.getGUIState(), 1);
+                    startIndex = page == 1 ? 0 : total; //Only the first page has anything on it
+                    endIndex = total;
+                }
+                else {
+                    int pageCount = (int) Math.ceil(total / ((double)maxSize-2)); //Cast maxSize to double so that the division is correct (Not rounded)
+                    setPageCountAttribute(session.getGUIState(), pageCount);
+                    maxSize = maxSize - 2; //Make room for next/prev page buttons
+                    startIndex = (page-1) * maxSize; //0 is first element since startIndex is inclusive
+                    endIndex = Math.min(startIndex+maxSize, total);
+                }
+
+                if(startIndex >= total){
+                    callback.call(GUIContentsResponse.create(false, new ArrayList<GUIElement>()));
+                    return;
+                }
+
+                final int limit = endIndex - startIndex;
+                genContents(viewer, session, startIndex, limit, new Callback<List<GUIElement>>() {
+                    @Override
+                    public void call(List<GUIElement> elements) {
+                        List<GUIElement> elementsToDisplay = new ArrayList<GUIElement>(
+                                elements.size() > limit ? elements.subList(0, limit) : elements); //Copy so that the list they've given us is not modified, ignoring any extra elements
+                        boolean hasNextPage = endIndex < total; //If the end of our range isn't the end of all of the elements
+                        callback.call(GUIContentsResponse.create(hasNextPage, elementsToDisplay));
+                    }
+                });
+            }
+        });
+    }
+}
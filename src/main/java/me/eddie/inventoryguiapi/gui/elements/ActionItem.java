@@ -3,6 +3,7 @@ package me.eddie.inventoryguiapi.gui.elements;
 import me.eddie.inventoryguiapi.gui.events.GUIClickEvent;
 import me.eddie.inventoryguiapi.gui.events.GUIEvent;
 import me.eddie.inventoryguiapi.gui.session.GUISession;
+import me.eddie.inventoryguiapi.util.ItemFingerprint;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
@@ -13,6 +14,8 @@ public class ActionItem extends AbstractGUIElement {
 
     private ItemStack display;
     private ActionHandler actionHandler;
+    private ItemStack fingerprintedDisplay = null; //The display item that displayFingerprint was computed from
+    private ItemFingerprint displayFingerprint = null;
 
     /**
      * Construct a new ActionItem with a desired slot
@@ -78,8 +81,34 @@ public class ActionItem extends AbstractGUIElement {
         return display;
     }
 
+    /**
+     * Set the display item
+     * @param display The display ItemStack
+     */
     public void setDisplayItem(ItemStack display) {
-        this.display = display;
+        synchronized (this){
+            this.display = display;
+            this.displayFingerprint = null;
+        }
+    }
+
+    /**
+     * Get the fingerprint of the display item, which is computed once and kept until the display item is set again or
+     * it's type or durability are changed. Changes made to the display item's meta without setting it again aren't
+     * noticed, so the fingerprint is only a hint: Anything using it must confirm a match by comparing the items, and
+     * should treat a mismatch as merely needing that comparison to be skipped (Eg. re-rendering the slot).
+     * @return The fingerprint of the display item, or null if there is no display item
+     */
+    public synchronized ItemFingerprint getDisplayFingerprint() {
+        if(display == null){
+            return null;
+        }
+        if(displayFingerprint == null || fingerprintedDisplay != display
+                || displayFingerprint.getType() != display.getType() || displayFingerprint.getDurability() != display.getDurability()){
+            displayFingerprint = ItemFingerprint.of(display);
+            fingerprintedDisplay = display;
+        }
+        return displayFingerprint;
     }
 
     @Override
@@ -36,7 +36,7 @@ public interface GUIElement {
 
     /**
      * This method returns the item (Bukkit) to be displayed in the inventory slot for a player. A returned value of null or an item of type AIR denotes that this slot in the inventory should be empty.
-     * @param viewer The player viewing the inventory. In the case of SharedGUI's the viewer should be ignored.
+     * @param viewer The player viewing the inventory. In the case of SharedGUI's only the viewer's language should be used, as viewers using the same language may be shown the same inventory.
      * @param session The GUISession that this GUIElement is being used with
      * @return The itemstack to display to the viewer
      */
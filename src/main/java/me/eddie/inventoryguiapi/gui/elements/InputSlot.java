@@ -4,8 +4,10 @@ import me.eddie.inventoryguiapi.gui.events.GUIEvent;
 import me.eddie.inventoryguiapi.gui.events.GUIMiscClickEvent;
 import me.eddie.inventoryguiapi.gui.events.GUIPickupItemEvent;
 import me.eddie.inventoryguiapi.gui.events.GUIPlaceItemEvent;
+import me.eddie.inventoryguiapi.gui.session.AttributeKey;
 import me.eddie.inventoryguiapi.gui.session.GUISession;
 import me.eddie.inventoryguiapi.gui.session.GUIState;
+import me.eddie.inventoryguiapi.gui.view.RenderedContents;
 import me.eddie.inventoryguiapi.util.StackCompatibilityUtil;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -18,6 +20,7 @@ import org.bukkit.inventory.ItemStack;
  */
 public class InputSlot extends AbstractGUIElement {
     private String inputSlotID;
+    private AttributeKey<ItemStack> currentItemKey; //Key of the attribute tracking the item this currently contains, kept as it's used every render
     private InputSlot.ActionHandler actionHandler;
 
     /**
@@ -32,6 +35,7 @@ public class InputSlot extends AbstractGUIElement {
             throw new IllegalArgumentException("Unique Input Slot Id must not be null");
         }
         this.inputSlotID = uniqueInputSlotID;
+        this.currentItemKey = createCurrentItemAttributeKey(uniqueInputSlotID);
         if(actionHandler == null){
             throw new IllegalArgumentException("ActionHandler must not be null");
         }
@@ -60,7 +64,11 @@ public class InputSlot extends AbstractGUIElement {
      * @param inputSlotID The input slot ID
      */
     public void setInputSlotID(String inputSlotID) {
+        if(inputSlotID == null){
+            throw new IllegalArgumentException("Unique Input Slot Id must not be null");
+        }
         this.inputSlotID = inputSlotID;
+        this.currentItemKey = createCurrentItemAttributeKey(inputSlotID);
     }
 
     /**
@@ -117,8 +125,8 @@ public class InputSlot extends AbstractGUIElement {
         public void onCurrentItemChanged(GUISession guiSession, ItemStack newItem);
     }
 
-    private String getCurrentItemAttributeKey(){ //Return a key that will be used to track the attribute for what item this currently contains
-        return "gui.inputSlot.currentItem."+getInputSlotID(); //An arbitrary string that won't conflict with other GUIElements or other slot IDs
+    private static AttributeKey<ItemStack> createCurrentItemAttributeKey(String inputSlotID){ //Return a key that will be used to track the attribute for what item this currently contains
+        return AttributeKey.create("gui.inputSlot.currentItem."+inputSlotID, ItemStack.class); //An arbitrary name that won't conflict with other GUIElements or other slot IDs. Not interned, as there can be any number of slot IDs
     }
 
     /**
@@ -127,9 +135,9 @@ public class InputSlot extends AbstractGUIElement {
      * @return The ItemStack currently being displayed
      */
     public ItemStack getCurrentItem(GUIState guiState){
-        Object item = guiState.getAttribute(getCurrentItemAttributeKey());
-        if(item != null && item instanceof ItemStack && !((ItemStack) item).getType().equals(Material.AIR)){ //Should never not be an ItemStack, but it doesn't hurt to check
-            return (ItemStack) item;
+        ItemStack item = guiState.getAttribute(currentItemKey);
+        if(item != null && !item.getType().equals(Material.AIR)){
+            return item;
         }
         return null;
     }
@@ -143,11 +151,11 @@ public class InputSlot extends AbstractGUIElement {
     public void setCurrentItem(GUISession guiSession, ItemStack item){
         GUIState guiState = guiSession.getGUIState();
         if(item == null){
-            guiState.removeAttribute(getCurrentItemAttributeKey());
+            guiState.removeAttribute(currentItemKey);
             getActionHandler().onCurrentItemChanged(guiSession, item); //Notify action handler that the item has now changed
             return;
         }
-        guiState.putAttribute(getCurrentItemAttributeKey(), item);
+        guiState.putAttribute(currentItemKey, item);
         getActionHandler().onCurrentItemChanged(guiSession, item); //Notify action handler that the item has now changed
     }
 
@@ -203,6 +211,7 @@ public class InputSlot extends AbstractGUIElement {
                 int newSlotAmt = prevItem.getAmount() - pickupAmt;
                 prevItem.setAmount(newSlotAmt < 1 ? 0 : newSlotAmt); //Update the amount on the item stack, but don't let it be negative
                 bukkitEvent.getView().setItem(bukkitEvent.getRawSlot(), newSlotAmt < 1 ? null : prevItem);
+                RenderedContents.update(bukkitEvent.getView().getTopInventory(), bukkitEvent.getSlot(), newSlotAmt < 1 ? null : prevItem); //Changed without the GUIPresenter
                 setCurrentItem(((GUIPickupItemEvent) event).getSession(), newSlotAmt < 1 ? null : prevItem);
 
                 //Update the item on the cursor
@@ -272,6 +281,7 @@ public class InputSlot extends AbstractGUIElement {
                 //Update ourselves
                 toPlace.setAmount(currentAmt+placeAmt);
                 bukkitEvent.getView().setItem(bukkitEvent.getRawSlot(), toPlace.getAmount() < 1 ? null : toPlace);
+                RenderedContents.update(bukkitEvent.getView().getTopInventory(), bukkitEvent.getSlot(), toPlace.getAmount() < 1 ? null : toPlace); //Changed without the GUIPresenter
                 setCurrentItem(((GUIPlaceItemEvent) event).getSession(), toPlace.getAmount() < 1 ? null : toPlace);
 
                 //Updates view of the GUI for all of it's viewers
@@ -0,0 +1,243 @@
+package me.eddie.inventoryguiapi.gui.guis;
+
+import me.eddie.inventoryguiapi.gui.elements.ActionItem;
+import me.eddie.inventoryguiapi.gui.elements.GUIElement;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits how fast each viewer of a GUI can click in it, so that a client sending far more clicks than a player could
+ * doesn't cause the GUI to do far more work than normal. Each viewer has a budget of clicks (A token bucket) which
+ * refills at a steady rate up to a maximum burst, and clicks made once it's empty are refused. Repeated clicks on an
+ * ActionItem in the same slot of the same page within a short window are also refused, so that a double click doesn't
+ * perform an action twice. They're told apart by where they are rather than by the ActionItem itself, as the same
+ * ActionItem may be shown in many places (eg. page buttons), and clicking it on the next page is a different action.
+ * Optionally the GUI as a whole also has a budget shared by all of it's viewers, limiting how much work many viewers
+ * clicking at once can cause.
+ */
+public class ClickRateLimiter {
+    /**
+     * Duplicate click window that disables refusing duplicate clicks
+     */
+    public static final long NO_DUPLICATE_WINDOW = 0;
+    /**
+     * Clicks per second that disables the budget shared by every viewer of the GUI
+     */
+    public static final int NO_GUI_LIMIT = 0;
+
+    private final int clicksPerSecond;
+    private final int burst;
+    private final long duplicateWindowMillis;
+    private final long duplicateWindowNanos;
+    private final int guiClicksPerSecond;
+    private final int guiBurst;
+    private final TokenBucket guiClicks; //Null if the GUI as a whole isn't limited
+    private final ConcurrentMap<UUID, ViewerClicks> viewerClicks = new ConcurrentHashMap<UUID, ViewerClicks>();
+    private final AtomicLong allowedClicks = new AtomicLong(0);
+    private final AtomicLong throttledClicks = new AtomicLong(0);
+    private final AtomicLong duplicateClicks = new AtomicLong(0);
+
+    /**
+     * Create a new ClickRateLimiter
+     * @param clicksPerSecond How many clicks per second each viewer's budget is refilled by
+     * @param burst The most clicks a viewer can make in quick succession, after not clicking for a while
+     * @param duplicateWindowMillis How long after clicking an ActionItem that clicking it again the same way, in the same
+     *                              slot of the same page, is refused, in milliseconds, or {@link #NO_DUPLICATE_WINDOW} to allow it
+     */
+    public ClickRateLimiter(int clicksPerSecond, int burst, long duplicateWindowMillis){
+        this(clicksPerSecond, burst, duplicateWindowMillis, NO_GUI_LIMIT, 0);
+    }
+
+    /**
+     * Create a new ClickRateLimiter that also limits how fast all viewers of the GUI can click in it combined
+     * @param clicksPerSecond How many clicks per second each viewer's budget is refilled by
+     * @param burst The most clicks a viewer can make in quick succession, after not clicking for a while
+     * @param duplicateWindowMillis How long after clicking an ActionItem that clicking it again the same way, in the same
+     *                              slot of the same page, is refused, in milliseconds, or {@link #NO_DUPLICATE_WINDOW} to allow it
+     * @param guiClicksPerSecond How many clicks per second the budget shared by every viewer is refilled by, or
+     *                           {@link #NO_GUI_LIMIT} to not limit the GUI as a whole
+     * @param guiBurst The most clicks all viewers combined can make in quick succession
+     */
+    public ClickRateLimiter(int clicksPerSecond, int burst, long duplicateWindowMillis, int guiClicksPerSecond, int guiBurst){
+        if(clicksPerSecond < 1 || burst < 1){
+            throw new IllegalArgumentException("Clicks per second and burst must be >= 1");
+        }
+        if(duplicateWindowMillis < 0){
+            throw new IllegalArgumentException("Duplicate click window must be >= 0");
+        }
+        if(guiClicksPerSecond < 0 || (guiClicksPerSecond != NO_GUI_LIMIT && guiBurst < 1)){
+            throw new IllegalArgumentException("GUI clicks per second must be >= 0 and GUI burst must be >= 1");
+        }
+        this.clicksPerSecond = clicksPerSecond;
+        this.burst = burst;
+        this.duplicateWindowMillis = duplicateWindowMillis;
+        this.duplicateWindowNanos = TimeUnit.MILLISECONDS.toNanos(duplicateWindowMillis);
+        this.guiClicksPerSecond = guiClicksPerSecond;
+        this.guiBurst = guiClicksPerSecond == NO_GUI_LIMIT ? 0 : guiBurst;
+        this.guiClicks = guiClicksPerSecond == NO_GUI_LIMIT ? null : new TokenBucket(guiBurst, System.nanoTime());
+    }
+
+    private static class TokenBucket {
+        double tokens;
+        long lastRefill;
+
+        private TokenBucket(double tokens, long lastRefill){
+            this.tokens = tokens;
+            this.lastRefill = lastRefill;
+        }
+
+        //Refill the budget for the time since it was last refilled, returning whether there's a click left in it
+        boolean refill(long now, int perSecond, int burst){
+            tokens = Math.min(burst, tokens + (now - lastRefill) * perSecond / (double) TimeUnit.SECONDS.toNanos(1));
+            lastRefill = now;
+            return tokens >= 1;
+        }
+    }
+
+    private static class ViewerClicks extends TokenBucket {
+        private boolean lastClickedAction = false; //Whether the last click was on an ActionItem, and so could be repeated
+        private int lastPage = 0;
+        private int lastSlot = 0;
+        private ClickType lastClickType = null;
+        private long lastClickTime = 0;
+
+        private ViewerClicks(double tokens, long lastRefill){
+            super(tokens, lastRefill);
+        }
+    }
+
+    /**
+     * Check if a viewer's click should be allowed, using up some of their budget if it is
+     * @param viewer The viewer clicking
+     * @param page The page of the GUI they're viewing
+     * @param slot The slot of the GUI clicked, ignored if they didn't click a GUIElement
+     * @param clicked The GUIElement clicked, or null if they didn't click one
+     * @param clickType How they clicked, or null if it isn't known
+     * @return True if the click should be handled, False if it should be cancelled
+     */
+    public boolean tryClick(Player viewer, int page, int slot, GUIElement clicked, ClickType clickType){
+        if(viewer == null){
+            throw new IllegalArgumentException("Viewer must not be null");
+        }
+        long now = System.nanoTime();
+        ViewerClicks clicks = viewerClicks.get(viewer.getUniqueId());
+        if(clicks == null){
+            ViewerClicks created = new ViewerClicks(burst, now);
+            clicks = viewerClicks.putIfAbsent(viewer.getUniqueId(), created);
+            if(clicks == null){
+                clicks = created;
+            }
+        }
+        synchronized (clicks){
+            boolean clickedAction = clicked instanceof ActionItem;
+            if(duplicateWindowNanos != NO_DUPLICATE_WINDOW && clickedAction && clicks.lastClickedAction && page == clicks.lastPage
+                    && slot == clicks.lastSlot && clickType == clicks.lastClickType && now - clicks.lastClickTime < duplicateWindowNanos){
+                duplicateClicks.incrementAndGet();
+                return false; //Same action as they just did, don't use up any budget on it
+            }
+
+            if(!clicks.refill(now, clicksPerSecond, burst)){
+                throttledClicks.incrementAndGet();
+                return false;
+            }
+            if(guiClicks != null){ //Always locked after the viewer's budget, so never deadlocks
+                synchronized (guiClicks){
+                    if(!guiClicks.refill(now, guiClicksPerSecond, guiBurst)){
+                        throttledClicks.incrementAndGet();
+                        return false; //Every viewer combined is clicking too fast
+                    }
+                    guiClicks.tokens--;
+                }
+            }
+            clicks.tokens--;
+            clicks.lastClickedAction = clickedAction;
+            clicks.lastPage = page;
+            clicks.lastSlot = slot;
+            clicks.lastClickType = clickType;
+            clicks.lastClickTime = now;
+        }
+        allowedClicks.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Forget about a viewer's clicks, eg. because they've stopped viewing the GUI
+     * @param viewer The viewer
+     */
+    public void forget(Player viewer){
+        if(viewer == null){
+            throw new IllegalArgumentException("Viewer must not be null");
+        }
+        viewerClicks.remove(viewer.getUniqueId());
+    }
+
+    /**
+     * Get how many clicks per second each viewer's budget is refilled by
+     * @return The amount of clicks per second
+     */
+    public int getClicksPerSecond(){
+        return clicksPerSecond;
+    }
+
+    /**
+     * Get the most clicks a viewer can make in quick succession
+     * @return The burst size
+     */
+    public int getBurst(){
+        return burst;
+    }
+
+    /**
+     * Get how long after clicking an ActionItem that clicking it again the same way, in the same slot of the same page, is refused
+     * @return The window in milliseconds, or {@link #NO_DUPLICATE_WINDOW} if repeated clicks aren't refused
+     */
+    public long getDuplicateWindowMillis(){
+        return duplicateWindowMillis;
+    }
+
+    /**
+     * Get how many clicks per second the budget shared by every viewer is refilled by
+     * @return The amount of clicks per second, or {@link #NO_GUI_LIMIT} if the GUI as a whole isn't limited
+     */
+    public int getGUIClicksPerSecond(){
+        return guiClicksPerSecond;
+    }
+
+    /**
+     * Get the most clicks every viewer combined can make in quick succession
+     * @return The burst size, or 0 if the GUI as a whole isn't limited
+     */
+    public int getGUIBurst(){
+        return guiBurst;
+    }
+
+    /**
+     * Get how many clicks have been allowed
+     * @return The amount of allowed clicks
+     */
+    public long getAllowedClicks(){
+        return allowedClicks.get();
+    }
+
+    /**
+     * Get how many clicks have been refused because the viewer, or the GUI as a whole, had used up their budget
+     * @return The amount of throttled clicks
+     */
+    public long getThrottledClicks(){
+        return throttledClicks.get();
+    }
+
+    /**
+     * Get how many clicks have been refused as duplicates of the viewer's last click
+     * @return The amount of duplicate clicks
+     */
+    public long getDuplicateClicks(){
+        return duplicateClicks.get();
+    }
+}
@@ -2,12 +2,17 @@ package me.eddie.inventoryguiapi.gui.guis;
 
 import me.eddie.inventoryguiapi.gui.contents.GUIContentsProvider;
 import me.eddie.inventoryguiapi.gui.contents.GUIPopulator;
+import me.eddie.inventoryguiapi.gui.contents.RangedPaginatingGUIContentsProvider;
+import me.eddie.inventoryguiapi.gui.elements.ActionItem;
 import me.eddie.inventoryguiapi.gui.elements.GUIElement;
 import me.eddie.inventoryguiapi.gui.events.*;
 import me.eddie.inventoryguiapi.gui.session.GUISession;
 import me.eddie.inventoryguiapi.gui.session.GUIState;
+import me.eddie.inventoryguiapi.gui.session.InventoryLayout;
 import me.eddie.inventoryguiapi.gui.session.InventoryState;
+import me.eddie.inventoryguiapi.gui.session.PageSnapshot;
 import me.eddie.inventoryguiapi.gui.view.GUIPresenter;
+import me.eddie.inventoryguiapi.gui.view.RenderedContents;
 import me.eddie.inventoryguiapi.plugin.EventCaller;
 import me.eddie.inventoryguiapi.plugin.InventoryGUIAPI;
 import me.eddie.inventoryguiapi.util.Callback;
@@ -25,7 +30,10 @@ import org.bukkit.inventory.InventoryView;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Default implementation of a GUI
@@ -41,6 +49,20 @@ public class GUI implements InventoryGUI {
     protected InventoryType inventoryType;
     protected int maxSize;
     protected boolean isDynamicSize;
+    protected GUIUpdateCoalescer updateCoalescer = null; //Null when updates should happen immediately
+    protected boolean showLoadingPlaceholder = false;
+    protected ItemStack loadingPaneItem = null; //Null if no loading pane should be shown
+    protected int maxRetainedPages = GUIState.RETAIN_ALL_PAGES;
+    protected int retainedRadius = 0;
+    protected volatile ClickRateLimiter clickRateLimiter = null; //Null when clicks aren't limited
+    protected boolean prefetchAdjacentPages = false;
+    private final Map<Integer, PageSnapshot> lastKnownPages = new LinkedHashMap<Integer, PageSnapshot>(16, 0.75f, true){ //Last populated layout and title of each page, for showing while a page loads
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, PageSnapshot> eldest) {
+            return maxRetainedPages != GUIState.RETAIN_ALL_PAGES && size() > maxRetainedPages; //Bounded the same as page states
+        }
+    };
+    private volatile PageSnapshot lastKnownTitled = null; //The page most recently populated, for titling placeholders of pages not seen before in each language
 
     /**
      * Create a new GUI
@@ -112,13 +134,144 @@ public class GUI implements InventoryGUI {
         session = createNewSession(player, page);
 
         final GUISession guiSess = session;
+        final AtomicReference<OpenState> state = new AtomicReference<OpenState>(OpenState.LOADING);
         guiPopulator.populateGUI(session, player, new Callback<Void>() {
             @Override
             public void call(Void param) {
-                guiPresenter.updateView(player, guiSess); //Show the player the GUI
-                GUIOpenEvent evt = new GUIOpenEvent(guiSess, player);
-                EventCaller.fireThroughBukkit(evt);
-                fireEventThroughActionListeners(evt);
+                rememberPage(guiSess);
+                OpenState previous = state.getAndSet(OpenState.POPULATED);
+                if(previous == OpenState.SHOWING_PLACEHOLDER){
+                    return; //Shown once the placeholder has been, so the placeholder can't replace it
+                }
+                present(player, guiSess); //Show the player the GUI
+                if(previous != OpenState.PLACEHOLDER_SHOWN) { //Otherwise they've already been told it's open
+                    onOpened(player, guiSess);
+                }
+            }
+        });
+        if(showLoadingPlaceholder && state.compareAndSet(OpenState.LOADING, OpenState.SHOWING_PLACEHOLDER)){ //Contents are still being calculated, so show something in the meantime
+            boolean shown = showPlaceholder(player, guiSess);
+            if(shown){
+                onOpened(player, guiSess);
+            }
+            if(!state.compareAndSet(OpenState.SHOWING_PLACEHOLDER, shown ? OpenState.PLACEHOLDER_SHOWN : OpenState.LOADING)){ //Populated whilst showing it, and left showing the contents to us
+                present(player, guiSess);
+                if(!shown){
+                    onOpened(player, guiSess);
+                }
+            }
+        }
+    }
+
+    //How far opening a GUI has got, so that the player is told it's open exactly once whether the placeholder or contents are shown first
+    private enum OpenState {
+        LOADING,
+        SHOWING_PLACEHOLDER,
+        PLACEHOLDER_SHOWN,
+        POPULATED
+    }
+
+    private void onOpened(Player player, GUISession session){
+        session.getGUIState().setViewedPage(session, session.getPage()); //Never evict the page while it's being viewed
+        onViewerOpened(player, session);
+        GUIOpenEvent evt = new GUIOpenEvent(session, player);
+        EventCaller.fireThroughBukkit(evt);
+        fireEventThroughActionListeners(evt);
+    }
+
+    //Remember the layout and title of the page the session is viewing, so it can be shown while the page loads for others
+    private void rememberPage(GUISession session){
+        if(!showLoadingPlaceholder){
+            return;
+        }
+        InventoryState state = session.getGUIState().getExistingInventoryState(session.getPage());
+        if(state == null){
+            return;
+        }
+        PageSnapshot snapshot = state.getSnapshot(); //Immutable, so can be shared
+        synchronized (lastKnownPages){
+            lastKnownPages.put(session.getPage(), snapshot);
+        }
+        if(snapshot.getTitle() != null){
+            lastKnownTitled = snapshot;
+        }
+    }
+
+    /**
+     * Show a viewer the page their session is on, using contents that have already been calculated for it some other
+     * way than populating it (Eg. prefetched by the GUIPopulator). The page is remembered for placeholders the same as
+     * a page that has just been populated.
+     * @param player The viewer
+     * @param session The GUISession they are viewing, already set to the page to show
+     */
+    public void showCalculatedPage(Player player, GUISession session){
+        if(session == null || !session.getInventoryGUI().equals(this)){
+            return; //Session not for this GUI or not present
+        }
+        rememberPage(session);
+        updateView(player, session);
+    }
+
+    /**
+     * Show a player a placeholder for the page their session is viewing, whilst it's contents are being calculated.
+     * This is the page as it was last shown to anyone with inert GUIElements, or if it's not been shown before then the
+     * loading pane, titled with the last title this GUI was shown with so that the inventory can be reused for the real
+     * contents once they're calculated.
+     * @param player The player to show the placeholder to
+     * @param session The GUISession they are viewing
+     * @return True if a placeholder was shown, False if there was nothing to show
+     */
+    protected boolean showPlaceholder(Player player, GUISession session){
+        int page = session.getPage();
+        InventoryState existing = session.getGUIState().getExistingInventoryState(page);
+        if(existing != null && existing.getTitle() != null){ //Already has a state (Eg. it's shared), which is the most recent thing we know
+            present(player, session);
+            return true;
+        }
+
+        PageSnapshot known;
+        synchronized (lastKnownPages){
+            known = lastKnownPages.get(page);
+        }
+        GUIElement[] placeholder = new GUIElement[getMaximumGUISize()];
+        PageSnapshot titled; //What the placeholder takes it's title in each language from
+        if(known != null){
+            InventoryLayout layout = known.getLayout();
+            for(int i=0;i<placeholder.length;i++){
+                GUIElement elem = layout.getElement(i);
+                ItemStack display = elem == null ? null : elem.getDisplay(player, session);
+                if(display != null && !display.getType().equals(Material.AIR)){
+                    placeholder[i] = createInertElement(display);
+                }
+            }
+            titled = known;
+        }
+        else if(loadingPaneItem != null){
+            GUIElement pane = createInertElement(loadingPaneItem);
+            for(int i=0;i<placeholder.length;i++){
+                placeholder[i] = pane;
+            }
+            titled = lastKnownTitled; //A different title would mean a new inventory has to be opened for the real contents
+            if(titled == null){ //Not shown to anyone yet, so the real title isn't known
+                titled = new PageSnapshot(InventoryLayout.EMPTY, InventoryGUIAPI.getLanguageManager(player).getString("gui.title.loading"), false);
+            }
+        }
+        else {
+            return false; //Nothing to show
+        }
+
+        InventoryState state = session.getGUIState().getOrCreateInventoryState(page); //Replaced by the real contents once they're calculated
+        state.setSnapshot(new PageSnapshot(new InventoryLayout(placeholder), titled.getTitle(), titled.getTitlesByLocale(), false));
+        present(player, session);
+        return true;
+    }
+
+    //A GUIElement that displays the given item and does nothing when clicked
+    private GUIElement createInertElement(ItemStack display){
+        return new ActionItem(display, new ActionItem.ActionHandler() {
+            @Override
+            public void onClick(GUIClickEvent event) {
+                //Still loading, so ignore clicks
             }
         });
     }
@@ -135,7 +288,55 @@ public class GUI implements InventoryGUI {
     }
 
     protected GUISession createNewSession(Player player, int page){
-        return new GUISession(this,page,new GUIState());
+        GUIState guiState = new GUIState();
+        guiState.setPageRetention(maxRetainedPages, retainedRadius);
+        return new GUISession(this,page,guiState);
+    }
+
+    /**
+     * Show a player the current state of the GUISession they are viewing, using this GUI's GUIPresenter
+     * @param player The player to show the GUI to
+     * @param session The GUISession they are viewing
+     */
+    protected void present(Player player, GUISession session){
+        guiPresenter.updateView(player, session);
+    }
+
+    /**
+     * Called when a player has been shown this GUI after it was opened for them
+     * @param player The player now viewing this GUI
+     * @param session The GUISession they are viewing
+     */
+    protected void onViewerOpened(Player player, GUISession session){
+        //Nothing to keep track of by default
+    }
+
+    /**
+     * Called when a player has closed this GUI
+     * @param player The player no longer viewing this GUI
+     * @param session The GUISession they were viewing
+     */
+    protected void onViewerClosed(Player player, GUISession session){
+        //Nothing to keep track of by default
+    }
+
+    /**
+     * Check if a player is still viewing this GUI with the given session, eg. before performing an update that was
+     * requested for it a tick ago
+     * @param player The player
+     * @param session The GUISession the update was requested with
+     * @return True if the player is still viewing the session, False otherwise
+     */
+    protected boolean isStillViewing(Player player, GUISession session){
+        return GUISession.extractSession(player) == session;
+    }
+
+    //Forget about updates for the session that haven't been performed yet, as the player has closed the GUI
+    protected void cancelPendingUpdates(Player player, GUISession session){
+        GUIUpdateCoalescer coalescer = updateCoalescer;
+        if(coalescer != null){
+            coalescer.cancelUpdate(getUpdateKey(session));
+        }
     }
 
     protected void updateContentsAndView(final Player player, final GUISession session){
@@ -143,12 +344,11 @@ public class GUI implements InventoryGUI {
             return; //Session not for this GUI or not present
         }
 
-        guiPopulator.populateGUI(session, player, new Callback<Void>() {
-            @Override
-            public void call(Void param) {
-                updateView(player, session);
-            }
-        });
+        if(updateCoalescer != null){ //Do it once at the start of next tick, no matter how many times it's requested before then
+            updateCoalescer.requestUpdate(getUpdateKey(session), player, session, true);
+            return;
+        }
+        updateContentsAndViewNow(player, session);
     }
 
     protected void updateView(final Player player, final GUISession session){
@@ -156,7 +356,37 @@ public class GUI implements InventoryGUI {
             return; //Session not for this GUI or not present
         }
 
-        guiPresenter.updateView(player, session); //Update player's view of the GUI
+        if(updateCoalescer != null){ //Do it once at the start of next tick, no matter how many times it's requested before then
+            updateCoalescer.requestUpdate(getUpdateKey(session), player, session, false);
+            return;
+        }
+        updateViewNow(player, session);
+    }
+
+    /**
+     * Get what is updated when an update is requested for the given session. Updates requested within the same tick
+     * for the same key are merged when update coalescing is enabled.
+     * @param session The session an update was requested for
+     * @return The key that identifies what will be updated
+     */
+    protected Object getUpdateKey(GUISession session){
+        return session;
+    }
+
+    //Recalculate the contents and update the view immediately, ignoring update coalescing
+    protected void updateContentsAndViewNow(final Player player, final GUISession session){
+        guiPopulator.populateGUI(session, player, new Callback<Void>() {
+            @Override
+            public void call(Void param) {
+                rememberPage(session);
+                updateViewNow(player, session);
+            }
+        });
+    }
+
+    //Update the view immediately, ignoring update coalescing
+    protected void updateViewNow(final Player player, final GUISession session){
+        present(player, session); //Update player's view of the GUI
         GUIUpdateEvent evt = new GUIUpdateEvent(session, player);
         Bukkit.getPluginManager().callEvent(evt);
         fireEventThroughActionListeners(evt);
@@ -189,6 +419,14 @@ public class GUI implements InventoryGUI {
         if(event instanceof InventoryCloseEvent){
             HumanEntity viewer = ((InventoryCloseEvent) event).getPlayer(); //getPlayer() doesn't return Player here because this method is ancient
             if(viewer instanceof Player) { //Check it is a player, which is ALWAYS the case unless some other plugin is doing something funky with fake entities
+                session.cancelRequests(); //Don't show them contents that are still being calculated
+                cancelPendingUpdates((Player) viewer, session); //Or update an inventory they've closed
+                session.getGUIState().removeViewer(session);
+                ClickRateLimiter limiter = clickRateLimiter;
+                if(limiter != null){
+                    limiter.forget((Player) viewer);
+                }
+                onViewerClosed((Player) viewer, session);
                 GUICloseEvent evt = new GUICloseEvent(session, (Player) viewer);
                 EventCaller.fireThroughBukkit(evt);
                 fireEventThroughActionListeners(evt);
@@ -247,6 +485,7 @@ public class GUI implements InventoryGUI {
                                         //Update the inventory
                                         toPlace.setAmount(amt);
                                         view.setItem(rawSlot, toPlace);
+                                        RenderedContents.update(view.getTopInventory(), rawSlot, toPlace); //Changed without the GUIPresenter
                                     }
                                 }
                             }
@@ -273,6 +512,11 @@ public class GUI implements InventoryGUI {
         GUIState guiState = session.getGUIState();
         InventoryState inventoryState = guiState.getExistingInventoryState(session.getPage());
         if(inventoryState == null){
+            if(guiState.wasEvicted(session.getPage())){ //Removed by the page retention limit, so calculate it again
+                clickEvent.setCancelled(true);
+                updateContentsAndView(player);
+                return;
+            }
             throw new RuntimeException("No InventoryState present for GUI interacted with!");
         }
 
@@ -324,6 +568,7 @@ public class GUI implements InventoryGUI {
                     handleBukkitEvent(pickupEvent, session);
                     if(!pickupEvent.isCancelled()){ //Not cancelled so it's expected that what would normally happen should happen
                         topInv.setItem(slot, null); //Remove item from the slot as we have now 'picked it up'
+                        RenderedContents.update(topInv, slot, null); //Changed without the GUIPresenter
                     }
                     if(clickEvent.getView().getItem(clickEvent.getRawSlot()) == inSlot ||
                             (clickEvent.getView().getItem(clickEvent.getRawSlot()) != null
@@ -345,6 +590,7 @@ public class GUI implements InventoryGUI {
 
                 //Update the slot with what was placed if event not cancelled
                 topInv.setItem(slot, cursor);
+                RenderedContents.update(topInv, slot, cursor); //Changed without the GUIPresenter
                 return;
             }
             default: {
@@ -373,6 +619,9 @@ public class GUI implements InventoryGUI {
 
         if(guiElement != null){
             guiElement.onEvent(guiEvent);
+            if(!clickEvent.isCancelled()){ //Bukkit will now change the slot's contents itself, so the slot must be re-rendered next time
+                RenderedContents.invalidate(topInv, slot);
+            }
         }
         else {
             clickEvent.setCancelled(true); //Cancel the bukkit event if they clicked in an empty position in the GUI and that click wasn't cancelled.
@@ -384,113 +633,264 @@ public class GUI implements InventoryGUI {
     protected void handleAutoInsertAsIndividualActions(Player viewer, InventoryState inventoryState, GUISession session, Inventory destInv, InventoryClickEvent shiftClickEvent){
         shiftClickEvent.setCancelled(true); //Cancel the event
         boolean destIsTopInv = shiftClickEvent.getView().getTopInventory().equals(destInv);
-        //find an empty slot and try and place it there
-        ItemStack toMove = shiftClickEvent.getCurrentItem().clone();
-        int totalToMove = toMove.getAmount(); //The total amount trying to be moved
-        if(toMove == null || toMove.getType().equals(Material.AIR) || toMove.getAmount() < 1){
+        ItemStack current = shiftClickEvent.getCurrentItem();
+        if(current == null || current.getType().equals(Material.AIR) || current.getAmount() < 1){
             return; //No item to move
         }
-        int destSlotNum = -1;
-        int moveAmount = toMove.getAmount(); //The amount we can move
-        for(int i=0;i<destInv.getSize();i++){ //First try and find a slot that we can stack with
-            if(!destIsTopInv && i > 35){ //Moving to bottom (Always Player) inventory, slots outside of 35 are not allowed to be auto-inserted into
-                break;
+        ItemStack toMove = current.clone();
+        //Work out where everything will go in one pass, moving to bottom (Always Player) inventory only slots up to 35 are allowed to be auto-inserted into
+        TransferPlan plan = TransferPlan.plan(viewer, session, destIsTopInv ? inventoryState : null, destInv, destIsTopInv ? destInv.getSize() : 36, toMove);
+        if(plan.isEmpty()){
+            return; //Nowhere to move it to
+        }
+
+        if(destIsTopInv){ //If destination is GUI, then simulate placing into each slot
+            autoInsertIntoGUI(session, destInv, shiftClickEvent, toMove, plan);
+        }
+        else { //Source is GUI, so simulate picking it up
+            autoInsertFromGUI(session, destInv, shiftClickEvent, toMove, plan);
+        }
+    }
+
+    //Move an item into the GUI following a transfer plan, with a place event for each destination slot
+    private void autoInsertIntoGUI(GUISession session, Inventory destInv, InventoryClickEvent shiftClickEvent, ItemStack toMove, TransferPlan plan){
+        InventoryView view = shiftClickEvent.getView();
+        ItemStack cursor = view.getCursor();
+        int remaining = toMove.getAmount();
+        for(int i=0;i<plan.size() && remaining > 0;i++){
+            int destSlotNum = plan.getSlot(i);
+            ItemStack existing = destInv.getItem(destSlotNum); //May have been changed by handling of the previous slots
+            boolean existingEmpty = existing == null || existing.getType().equals(Material.AIR);
+            if(plan.isStacking(i) == existingEmpty || (!existingEmpty && !plan.canStackWith(destSlotNum, existing))){
+                continue; //No longer what was planned
             }
-            ItemStack it = destInv.getItem(i);
-            if(it != null && !it.getType().equals(Material.AIR)){ //Slot isn't empty, let's try and place it here
-                GUIElement inSlot = !destIsTopInv ? null : inventoryState.getElementInSlot(i); //The GUIElement in this slot if dest is the GUI
-                if(inSlot == null || inSlot.canAutoInsertIntoSlot(viewer, session)) { //Slot is able to be auto inserted into
-                    if(it.getAmount() < it.getMaxStackSize() && StackCompatibilityUtil.canStack(it, toMove)){ //They can be stacked together and it's not a full stack
-                        destSlotNum = i;
-                        moveAmount = Math.min(moveAmount, it.getMaxStackSize() - it.getAmount()); //Reduce the number to move if moving the current amount would overflow the stack
-                        break;
-                    }
-                }
+            int existingAmount = existingEmpty ? 0 : existing.getAmount();
+            int moveAmount = Math.min(Math.min(remaining, plan.getAmount(i)), toMove.getMaxStackSize() - existingAmount);
+            if(moveAmount < 1){
+                continue;
+            }
+            ItemStack moving = toMove.clone();
+            moving.setAmount(moveAmount);
+
+            //Simulate a place event for here
+            view.setCursor(moving);
+            InventoryClickEvent placeEvent = new InventoryClickEvent(view, InventoryType.SlotType.CONTAINER, destSlotNum, ClickType.LEFT, InventoryAction.PLACE_ALL);
+            handleBukkitEvent(placeEvent, session);
+            boolean placed = !placeEvent.isCancelled() || view.getCursor() == null
+                    || view.getCursor().getType().equals(Material.AIR); //If cursor is now cleared or event not cancelled, then item was/should be moved
+            view.setCursor(cursor); //Reset cursor to how it was before we did the shift click
+            if(!placeEvent.isCancelled()){
+                //Move item as it not being cancelled means it's expected to happen
+                ItemStack result = moving.clone();
+                result.setAmount(existingAmount + moveAmount); //Add to what was already there
+                destInv.setItem(destSlotNum, result);
+                RenderedContents.update(destInv, destSlotNum, result); //Changed without the GUIPresenter
+            }
+            if(placed){ //Has been placed into the destination slot, so now clear the source slot of the items we moved
+                remaining -= moveAmount;
+                ItemStack remainder = toMove.clone(); //Get the item stack that was moved
+                remainder.setAmount(remaining); //Set the amount to be how many are left
+                view.setItem(shiftClickEvent.getRawSlot(), remaining < 1 ? null : remainder); //Update in inventory
             }
         }
-        if(destSlotNum == -1){ //If still not found a slot
-            for(int i=0;i<destInv.getSize();i++){ //Second try and find an allowed empty slot to try and place into
-                if(!destIsTopInv && i > 35){ //Moving to bottom (Always Player) inventory, slots outside of 35 are not allowed to be auto-inserted into
-                    break;
-                }
-                ItemStack it = destInv.getItem(i);
-                if(it == null || it.getType().equals(Material.AIR)){ //Slot is empty, let's try and place it here
-                    GUIElement inSlot = !destIsTopInv ? null : inventoryState.getElementInSlot(i); //The GUIElement in this slot if dest is the GUI
-                    if(inSlot == null || inSlot.canAutoInsertIntoSlot(viewer, session)) {
-                        destSlotNum = i;
-                        break;
-                    }
-                }
+    }
+
+    //Move an item out of the GUI following a transfer plan, with a single pickup event for the source slot
+    private void autoInsertFromGUI(GUISession session, Inventory destInv, InventoryClickEvent shiftClickEvent, ItemStack toMove, TransferPlan plan){
+        InventoryView view = shiftClickEvent.getView();
+        ItemStack cursor = view.getCursor();
+        view.setCursor(null); //Set the current cursor to nothing, so we can pickup everything available
+        //Pickup all the items in the slot
+        InventoryClickEvent pickupEvent = new InventoryClickEvent(view, shiftClickEvent.getSlotType(), shiftClickEvent.getRawSlot(), ClickType.LEFT, InventoryAction.PICKUP_ALL);
+        handleBukkitEvent(pickupEvent, session);
+        int amtPickedUp;
+        if(!pickupEvent.isCancelled()){ //If not cancelled we actually have to do the action
+            view.setItem(shiftClickEvent.getRawSlot(), null);
+            RenderedContents.update(view.getTopInventory(), shiftClickEvent.getSlot(), null); //Changed without the GUIPresenter
+            amtPickedUp = toMove.getAmount();
+        }
+        else { //Whatever handled it may have given us some of the items
+            amtPickedUp = view.getCursor() == null || view.getCursor().getType().equals(Material.AIR) ? 0 : view.getCursor().getAmount();
+        }
+
+        int toDistribute = Math.min(amtPickedUp, plan.getTotalAmount());
+        int toPutBack = amtPickedUp - toDistribute;
+        if(toPutBack > 0){ //We picked up more than there's room for, so put back the extra
+            ItemStack toReturn = toMove.clone();
+            toReturn.setAmount(toPutBack);
+            view.setCursor(toReturn);
+            InventoryClickEvent placeEvent = new InventoryClickEvent(view, shiftClickEvent.getSlotType(), shiftClickEvent.getRawSlot(), ClickType.LEFT, InventoryAction.PLACE_ALL);
+            handleBukkitEvent(placeEvent, session);
+            if(!placeEvent.isCancelled()){
+                //Change item as it not being cancelled means it's expected to happen
+                view.setItem(shiftClickEvent.getRawSlot(), toReturn);
+                RenderedContents.update(view.getTopInventory(), shiftClickEvent.getSlot(), toReturn); //Changed without the GUIPresenter
             }
         }
-        toMove.setAmount(moveAmount);
 
-        if(destSlotNum >= 0) { //If we have found a destination slot
-            //Simulate a place event for here
-            ItemStack cursor = shiftClickEvent.getView().getCursor();
+        //Put the 'picked up' items into the destination inventory
+        for(int i=0;i<plan.size() && toDistribute > 0;i++){
+            int destSlotNum = plan.getSlot(i);
+            int amount = Math.min(toDistribute, plan.getAmount(i));
+            ItemStack currentItem = destInv.getItem(destSlotNum);
+            int currentAmt = currentItem == null || currentItem.getType().equals(Material.AIR) || !StackCompatibilityUtil.canStack(toMove, currentItem) ? 0 : currentItem.getAmount();
+            ItemStack result = toMove.clone();
+            result.setAmount(currentAmt + amount); //Add the existing amount and the amount to add
+            destInv.setItem(destSlotNum, result);
+            toDistribute -= amount;
+        }
+        view.setCursor(cursor); //Reset cursor to how it was before we did the shift click
+    }
 
-            if(destIsTopInv) { //If destination is GUI, then simulate placing it
-                shiftClickEvent.getView().setCursor(toMove);
-                InventoryClickEvent placeEvent = new InventoryClickEvent(shiftClickEvent.getView(), InventoryType.SlotType.CONTAINER, destSlotNum, ClickType.LEFT, InventoryAction.PLACE_ALL);
-                handleBukkitEvent(placeEvent, session);
-                boolean placed = !placeEvent.isCancelled() || shiftClickEvent.getView().getCursor() == null
-                        || shiftClickEvent.getView().getCursor().getType().equals(Material.AIR); //If cursor is now cleared or event not cancelled, then item was/should be moved
-                shiftClickEvent.getView().setCursor(cursor); //Reset cursor to how it was before we did the shift click
-                if(!placeEvent.isCancelled()){
-                    //Move item as it not being cancelled means it's expected to happen
-                    destInv.setItem(destSlotNum, toMove); //Make the slot contain the item to move
-                }
-                if(placed){ //Has been placed into the destination slot, so now clear the source slot of the items we moved
-                    int newAmount = totalToMove - moveAmount; //Figure out how many are left
-                    ItemStack remainder = toMove.clone(); //Get the item stack that was moved
-                    remainder.setAmount(newAmount); //Set the amount to be how many are left
-                    shiftClickEvent.getView().setItem(shiftClickEvent.getRawSlot(), newAmount < 1 ? null : remainder); //Update in inventory
-                }
-            }
-            else { //Source is GUI, so simulate picking it up
-                shiftClickEvent.getView().setCursor(null); //Set the current cursor to nothing, so we can pickup everything available
-                //Pickup all the items in the slot
-                InventoryClickEvent pickupEvent = new InventoryClickEvent(shiftClickEvent.getView(), shiftClickEvent.getSlotType(), shiftClickEvent.getRawSlot(), ClickType.LEFT, InventoryAction.PICKUP_ALL);
-                handleBukkitEvent(pickupEvent, session);
-                boolean pickedUp = !pickupEvent.isCancelled() || (shiftClickEvent.getView().getCursor() != null
-                        && !shiftClickEvent.getView().getCursor().getType().equals(Material.AIR)); //If all the items were picked up
-                if(!pickupEvent.isCancelled()){ //If not cancelled we actually have to do the action
-                    shiftClickEvent.getView().setItem(shiftClickEvent.getRawSlot(), null);
-                }
-                if(pickedUp){
-                    //We picked up too much, so put back any needed
-                    int amtPickedUp = shiftClickEvent.getView().getCursor() == null ? 0 : shiftClickEvent.getView().getCursor().getAmount();
-                    int toPutBack = amtPickedUp - moveAmount;
-                    if(toPutBack > 0){ //Put back the extra
-                        ItemStack toReturn = toMove.clone();
-                        toReturn.setAmount(toPutBack);
-                        shiftClickEvent.getView().setCursor(toReturn);
-                        InventoryClickEvent placeEvent = new InventoryClickEvent(shiftClickEvent.getView(), shiftClickEvent.getSlotType(), shiftClickEvent.getRawSlot(), ClickType.LEFT, InventoryAction.PLACE_ALL);
-                        handleBukkitEvent(placeEvent, session);
-                        if(!placeEvent.isCancelled()){
-                            //Change item as it not being cancelled means it's expected to happen
-                            shiftClickEvent.getView().setItem(shiftClickEvent.getRawSlot(), toReturn);
-                        }
-                    }
+    /**
+     * Set whether or not updates to this GUI should be coalesced. When enabled, calls to updateView and
+     * updateContentsAndView only mark what they would update as needing an update, and each of those is then updated
+     * exactly once at the start of the next tick. This avoids redundant re-renders when several updates are requested
+     * in the same tick, eg. by a GUIElement and then by an ActionListener.
+     * @param coalesceUpdates True if updates should be coalesced, False if they should happen immediately
+     */
+    public void setCoalesceUpdates(boolean coalesceUpdates){
+        if(coalesceUpdates == isCoalescingUpdates()){
+            return;
+        }
+        if(coalesceUpdates){
+            this.updateCoalescer = new GUIUpdateCoalescer(this);
+        }
+        else {
+            GUIUpdateCoalescer coalescer = this.updateCoalescer;
+            this.updateCoalescer = null;
+            coalescer.flush(); //Don't lose any updates that were waiting
+        }
+    }
 
-                    //Put the 'picked up' items into the destination inventory
-                    ItemStack currentItem = destInv.getItem(destSlotNum);
-                    int currentAmt = currentItem == null || !StackCompatibilityUtil.canStack(toMove, currentItem) ? 0 : currentItem.getAmount();
-                    int amt = currentAmt + moveAmount; //Add the existing amount and the amount to add
-                    toMove.setAmount(amt);
-                    destInv.setItem(destSlotNum, toMove);
-                }
-                shiftClickEvent.getView().setCursor(cursor); //Reset cursor to how it was before we did the shift click
-            }
+    /**
+     * Set whether or not a placeholder should be shown to players opening this GUI while it's contents are still being
+     * calculated, instead of showing them nothing. The placeholder is the page as it was last shown, with GUIElements
+     * that can't be interacted with, or the loading pane if the page hasn't been shown before.
+     * @param showLoadingPlaceholder True if a placeholder should be shown, False if not
+     * @param loadingPaneItem The item to fill the GUI with when the page hasn't been shown before, or null to show nothing
+     */
+    public void setLoadingPlaceholder(boolean showLoadingPlaceholder, ItemStack loadingPaneItem){
+        this.showLoadingPlaceholder = showLoadingPlaceholder;
+        this.loadingPaneItem = loadingPaneItem;
+    }
+
+    /**
+     * Limit how many pages of this GUI are kept in memory per GUIState. See {@link GUIState#setPageRetention(int, int)}.
+     * Only affects GUIStates created after this is called.
+     * @param maxRetainedPages The maximum amount of pages to keep, or {@link GUIState#RETAIN_ALL_PAGES} for no limit
+     * @param retainedRadius How many pages either side of the page being accessed are always kept
+     */
+    public void setPageRetention(int maxRetainedPages, int retainedRadius){
+        if(maxRetainedPages < 0 || retainedRadius < 0){
+            throw new IllegalArgumentException("Page retention limits must be >= 0");
+        }
+        if(maxRetainedPages != GUIState.RETAIN_ALL_PAGES && maxRetainedPages < retainedRadius*2+1){
+            throw new IllegalArgumentException("Must retain at least as many pages as are covered by the radius ("+(retainedRadius*2+1)+")");
+        }
+        this.maxRetainedPages = maxRetainedPages;
+        this.retainedRadius = retainedRadius;
+    }
+
+    /**
+     * Set whether or not the pages before and after the page being viewed should be calculated ahead of time, whatever
+     * this GUI's contents provider is. Otherwise adjacent pages are only calculated ahead of time if the GUIPopulator
+     * prefetches them (See {@link GUIPopulator#setPrefetchAdjacentPages(boolean)}) and the contents provider is a
+     * {@link RangedPaginatingGUIContentsProvider}.
+     * @param prefetchAdjacentPages True if adjacent pages should be calculated ahead of time, False (Default) to leave it to the GUIPopulator
+     */
+    public void setPrefetchAdjacentPages(boolean prefetchAdjacentPages){
+        this.prefetchAdjacentPages = prefetchAdjacentPages;
+    }
+
+    /**
+     * Whether or not the pages adjacent to the page being viewed are always calculated ahead of time for this GUI
+     * @return True if they are, False if it's left to the GUIPopulator
+     */
+    public boolean isPrefetchingAdjacentPages(){
+        return prefetchAdjacentPages;
+    }
 
-            if(totalToMove > moveAmount){ //If not all of the stack was moved into the GUI, call recursively to try and move the remainder
-                InventoryClickEvent newShiftClickEvent = new InventoryClickEvent(shiftClickEvent.getView(), shiftClickEvent.getSlotType(),
-                        shiftClickEvent.getRawSlot(), shiftClickEvent.getClick(), InventoryAction.MOVE_TO_OTHER_INVENTORY);
-                //Call self recursively to move the remainder somewhere
-                handleAutoInsertAsIndividualActions(viewer, inventoryState, session, destInv, newShiftClickEvent);
+    /**
+     * Set how fast viewers are allowed to click in this GUI
+     * @param clickRateLimiter The ClickRateLimiter to check clicks with, or null to not limit clicks
+     */
+    public void setClickRateLimiter(ClickRateLimiter clickRateLimiter){
+        this.clickRateLimiter = clickRateLimiter;
+    }
+
+    /**
+     * Get what limits how fast viewers are allowed to click in this GUI
+     * @return The ClickRateLimiter, or null if clicks aren't limited
+     */
+    public ClickRateLimiter getClickRateLimiter(){
+        return clickRateLimiter;
+    }
+
+    /**
+     * Check a click or drag in this GUI against it's click rate limit. Called before the event is handled so that
+     * refused clicks are cancelled before anything else is done with them. Only clicks and drags that touch the GUI's
+     * inventory use up any budget, so viewers can sort their own inventory as fast as they like.
+     * @param viewer The viewer clicking
+     * @param session The GUISession of the viewer
+     * @param event The InventoryClickEvent or InventoryDragEvent
+     * @return True if the event should be handled, False if it should be cancelled
+     */
+    public boolean allowClick(Player viewer, GUISession session, InventoryInteractEvent event){
+        ClickRateLimiter limiter = clickRateLimiter;
+        if(limiter == null){
+            return true;
+        }
+        GUIElement clicked = null;
+        ClickType clickType = null;
+        int slot = -1;
+        Inventory topInv = event.getView().getTopInventory();
+        if(event instanceof InventoryClickEvent){
+            InventoryClickEvent clickEvent = (InventoryClickEvent) event;
+            clickType = clickEvent.getClick();
+            if(topInv.equals(clickEvent.getClickedInventory())){
+                InventoryState inventoryState = session.getGUIState().getExistingInventoryState(session.getPage());
+                slot = clickEvent.getSlot();
+                clicked = inventoryState == null ? null : inventoryState.getElementInSlot(slot);
+            }
+            else if(!clickEvent.isShiftClick()){
+                return true; //In their own inventory, shift clicks are still limited as they move items into the GUI
             }
         }
-        return;
+        else if(event instanceof InventoryDragEvent){
+            boolean intoGUI = false;
+            for(int rawSlot:((InventoryDragEvent) event).getRawSlots()){
+                intoGUI |= rawSlot < topInv.getSize(); //Raw slots of the top inventory come first
+            }
+            if(!intoGUI){
+                return true; //Only dragged across their own inventory
+            }
+        }
+        return limiter.tryClick(viewer, session.getPage(), slot, clicked, clickType);
+    }
+
+    /**
+     * Get the maximum amount of pages of this GUI kept in memory per GUIState
+     * @return The maximum, or {@link GUIState#RETAIN_ALL_PAGES} if there is no limit
+     */
+    public int getMaxRetainedPages(){
+        return maxRetainedPages;
+    }
+
+    /**
+     * Whether or not a placeholder is shown to players opening this GUI while it's contents are being calculated
+     * @return True if a placeholder is shown, False otherwise
+     */
+    public boolean isShowingLoadingPlaceholder(){
+        return showLoadingPlaceholder;
+    }
+
+    /**
+     * Whether or not updates to this GUI are coalesced so that they happen at most once per tick
+     * @return True if updates are coalesced, False if they happen immediately
+     */
+    public boolean isCoalescingUpdates(){
+        return this.updateCoalescer != null;
     }
 
     /**
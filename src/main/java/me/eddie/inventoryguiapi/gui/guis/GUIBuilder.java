@@ -3,12 +3,17 @@ package me.eddie.inventoryguiapi.gui.guis;
 import me.eddie.inventoryguiapi.gui.contents.GUIContentsProvider;
 import me.eddie.inventoryguiapi.gui.contents.GUIPopulator;
 import me.eddie.inventoryguiapi.gui.contents.PaginatingGUIContentsProvider;
+import me.eddie.inventoryguiapi.gui.contents.RangedPaginatingGUIContentsProvider;
 import me.eddie.inventoryguiapi.gui.elements.GUIElement;
-import me.eddie.inventoryguiapi.gui.session.GUISession;
+import me.eddie.inventoryguiapi.gui.session.GUISession;
+import me.eddie.inventoryguiapi.gui.session.GUIState;
 import me.eddie.inventoryguiapi.gui.view.GUIPresenter;
+import me.eddie.inventoryguiapi.plugin.InventoryGUIAPI;
+import me.eddie.inventoryguiapi.util.BukkitExecutors;
 import me.eddie.inventoryguiapi.util.Callback;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,6 +30,22 @@ public class GUIBuilder {
     private GUIPopulator guiPopulator = null;
     private GUIPresenter guiPresenter = null;
     private GUIActionListener[] actionListeners = new GUIActionListener[]{};
+    private boolean coalesceUpdates = false;
+    private boolean populatePerViewer = false;
+    private boolean shareInventories = false;
+    private boolean prefetchAdjacentPages = false;
+    private long maxPrefetchAgeMillis = GUIPopulator.DEFAULT_MAX_PREFETCH_AGE_MILLIS;
+    private boolean asyncContents = false;
+    private boolean showLoadingPlaceholder = false;
+    private boolean trackInsertCandidates = false;
+    private ItemStack loadingPaneItem = null;
+    private int maxRetainedPages = GUIState.RETAIN_ALL_PAGES;
+    private int retainedRadius = 0;
+    private int clicksPerSecond = 0; //0 if clicks aren't limited
+    private int clickBurst = 0;
+    private long duplicateClickWindowMillis = ClickRateLimiter.NO_DUPLICATE_WINDOW;
+    private int guiClicksPerSecond = ClickRateLimiter.NO_GUI_LIMIT;
+    private int guiClickBurst = 0;
 
     /**
      * Create a new GUIBuilder, used for building a new InventoryGUI that uses the default GUI implementation
@@ -115,6 +136,179 @@ public class GUIBuilder {
         return this;
     }
 
+    /**
+     * Set whether or not the pages before and after the page being viewed should be calculated ahead of time, so that
+     * changing page with the page buttons doesn't have to wait for the GUIContentsProvider. Useful when generating
+     * contents is slow, at the cost of generating pages that may never be viewed. Unless the GUIContentsProvider is a
+     * {@link RangedPaginatingGUIContentsProvider}, every page is generated to
+     * get any one of them, so each page change then generates them three times.
+     * @param prefetchAdjacentPages True if adjacent pages should be calculated ahead of time, False (Default) if not
+     * @return Returns self
+     */
+    public GUIBuilder prefetchAdjacentPages(boolean prefetchAdjacentPages){
+        this.prefetchAdjacentPages = prefetchAdjacentPages;
+        return this;
+    }
+
+    /**
+     * Set whether or not the pages before and after the page being viewed should be calculated ahead of time, and how
+     * long after being calculated they can be shown. See {@link #prefetchAdjacentPages(boolean)}.
+     * @param prefetchAdjacentPages True if adjacent pages should be calculated ahead of time, False (Default) if not
+     * @param maxAgeMillis How long, in milliseconds, a prefetched page can be shown for after being calculated, or
+     *                     {@link GUIState#ANY_PREFETCH_AGE} for no limit
+     * @return Returns self
+     */
+    public GUIBuilder prefetchAdjacentPages(boolean prefetchAdjacentPages, long maxAgeMillis){
+        if(maxAgeMillis < 0 && maxAgeMillis != GUIState.ANY_PREFETCH_AGE){
+            throw new IllegalArgumentException("Max prefetch age must be >= 0");
+        }
+        this.prefetchAdjacentPages = prefetchAdjacentPages;
+        this.maxPrefetchAgeMillis = maxAgeMillis;
+        return this;
+    }
+
+    /**
+     * Set whether or not the GUIContentsProvider should be asked for contents and titles off of the server thread.
+     * The results are then laid out and shown to viewers on the server thread. Enable this if your GUIContentsProvider
+     * does slow work such as database queries, it must then not use the parts of the Bukkit API that aren't thread safe.
+     * @param asyncContents True if contents should be generated asynchronously, False (Default) if on the server thread
+     * @return Returns self
+     */
+    public GUIBuilder asyncContents(boolean asyncContents){
+        this.asyncContents = asyncContents;
+        return this;
+    }
+
+    /**
+     * Set whether or not a placeholder should be shown to players opening the GUI while it's contents are still being
+     * calculated (Eg. when contents are generated asynchronously). The placeholder is the page as it was last shown,
+     * but with GUIElements that can't be interacted with, or if the page hasn't been shown before then the loading pane.
+     * If no custom GUIPresenter is specified, the default one will only update the slots that change when the real
+     * contents replace the placeholder.
+     * @param showLoadingPlaceholder True if a placeholder should be shown, False (Default) if players should see nothing until contents are calculated
+     * @param loadingPaneItem The item to fill the GUI with if the page hasn't been shown before, or null to show nothing in that case
+     * @return Returns self
+     */
+    public GUIBuilder loadingPlaceholder(boolean showLoadingPlaceholder, ItemStack loadingPaneItem){
+        this.showLoadingPlaceholder = showLoadingPlaceholder;
+        this.loadingPaneItem = loadingPaneItem;
+        return this;
+    }
+
+    /**
+     * Set whether or not the default GUIPresenter should record what it renders into each slot, so that items shift
+     * clicked into the GUI are only checked against the slots they could go in. Worth enabling for large GUIs that items
+     * are shift clicked into, eg. ones with many InputSlots. Has no effect if a custom GUIPresenter is specified.
+     * See {@link GUIPresenter#GUIPresenter(boolean, boolean)}.
+     * @param trackInsertCandidates True if slots that items could be inserted into should be tracked, False (Default) otherwise
+     * @return Returns self
+     */
+    public GUIBuilder trackInsertCandidates(boolean trackInsertCandidates){
+        this.trackInsertCandidates = trackInsertCandidates;
+        return this;
+    }
+
+    /**
+     * Limit how many pages of the GUI have their calculated contents kept in memory. Once more pages than this have been
+     * viewed, the least recently used pages are discarded (And calculated again if they're viewed again), except for
+     * those within the given radius of the page being viewed. Useful for GUIs with many pages, especially ones with a
+     * {@link GUIStateBehaviour#BOUND_TO_GUI} state which would otherwise keep every page viewed for as long as the GUI exists.
+     * The limit should be greater than the amount of pages expected to be viewed at the same time.
+     * @param maxRetainedPages The maximum amount of pages to keep, or {@link GUIState#RETAIN_ALL_PAGES} (Default) to keep every page
+     * @param retainedRadius How many pages either side of the page being viewed are always kept
+     * @return Returns self
+     */
+    public GUIBuilder pageRetention(int maxRetainedPages, int retainedRadius){
+        if(maxRetainedPages < 0 || retainedRadius < 0){
+            throw new IllegalArgumentException("Page retention limits must be >= 0");
+        }
+        this.maxRetainedPages = maxRetainedPages;
+        this.retainedRadius = retainedRadius;
+        return this;
+    }
+
+    /**
+     * Limit how fast each viewer can click in the GUI. Each viewer can click up to burst times in quick succession, and
+     * then clicksPerSecond times a second after that, with any other clicks being cancelled before the GUI handles them.
+     * Clicking the same ActionItem the same way again, in the same slot of the same page, within the duplicate window is
+     * also cancelled.
+     * See {@link ClickRateLimiter}. By default clicks are not limited.
+     * @param clicksPerSecond How many clicks a second each viewer is allowed
+     * @param burst How many clicks each viewer can make in quick succession
+     * @param duplicateWindowMillis How long, in milliseconds, after clicking an ActionItem that clicking it again there is
+     *                              ignored, or {@link ClickRateLimiter#NO_DUPLICATE_WINDOW} to not ignore repeated clicks
+     * @return Returns self
+     */
+    public GUIBuilder clickRateLimit(int clicksPerSecond, int burst, long duplicateWindowMillis){
+        if(clicksPerSecond < 1 || burst < 1){
+            throw new IllegalArgumentException("Clicks per second and burst must be >= 1");
+        }
+        if(duplicateWindowMillis < 0){
+            throw new IllegalArgumentException("Duplicate click window must be >= 0");
+        }
+        this.clicksPerSecond = clicksPerSecond;
+        this.clickBurst = burst;
+        this.duplicateClickWindowMillis = duplicateWindowMillis;
+        return this;
+    }
+
+    /**
+     * Limit how fast all viewers of the GUI combined can click in it, as well as each viewer on their own. Only has an
+     * effect if each viewer's clicks are limited too, see {@link #clickRateLimit(int, int, long)}.
+     * By default the GUI as a whole is not limited.
+     * @param clicksPerSecond How many clicks a second all viewers combined are allowed, or
+     *                        {@link ClickRateLimiter#NO_GUI_LIMIT} to not limit the GUI as a whole
+     * @param burst How many clicks all viewers combined can make in quick succession
+     * @return Returns self
+     */
+    public GUIBuilder guiClickRateLimit(int clicksPerSecond, int burst){
+        if(clicksPerSecond < 0 || (clicksPerSecond != ClickRateLimiter.NO_GUI_LIMIT && burst < 1)){
+            throw new IllegalArgumentException("Clicks per second must be >= 0 and burst must be >= 1");
+        }
+        this.guiClicksPerSecond = clicksPerSecond;
+        this.guiClickBurst = burst;
+        return this;
+    }
+
+    /**
+     * Set whether or not updates to the GUI should be coalesced.
+     * When enabled, every update requested for a GUISession (Or for a shared GUI) within a tick is merged into a single
+     * update that happens at the start of the next tick. This is useful for GUIs where one interaction causes several
+     * updates to be requested, at the cost of views being updated up to a tick later.
+     * @param coalesceUpdates True if updates should be coalesced, False (Default) if they should happen immediately
+     * @return Returns self
+     */
+    public GUIBuilder coalesceUpdates(boolean coalesceUpdates){
+        this.coalesceUpdates = coalesceUpdates;
+        return this;
+    }
+
+    /**
+     * Set whether or not a GUI with a {@link GUIStateBehaviour#BOUND_TO_GUI} state should calculate it's contents
+     * separately for every viewer. By default the contents of each page are calculated once and shown to every viewer
+     * of that page. Only enable this if your GUIContentsProvider produces different contents for different viewers.
+     * This has no effect on GUIs with a {@link GUIStateBehaviour#LOCAL_TO_SESSION} state.
+     * @param populatePerViewer True if contents should be calculated for each viewer, False (Default) if once per page
+     * @return Returns self
+     */
+    public GUIBuilder populatePerViewer(boolean populatePerViewer){
+        this.populatePerViewer = populatePerViewer;
+        return this;
+    }
+
+    /**
+     * Set whether or not all viewers of a page of a GUI with a {@link GUIStateBehaviour#BOUND_TO_GUI} state should be
+     * shown the same Bukkit inventory, so that each page is only filled once per update no matter how many players view it.
+     * This has no effect on GUIs with a {@link GUIStateBehaviour#LOCAL_TO_SESSION} state, or ones that calculate
+     * their contents separately for every viewer.
+     * @param shareInventories True if viewers of a page should share one inventory, False (Default) if each viewer gets their own
+     * @return Returns self
+     */
+    public GUIBuilder shareInventories(boolean shareInventories){
+        this.shareInventories = shareInventories;
+        return this;
+    }
+
     /**
      * Set the size this GUI should be for each page.
      * With a dynamically re-sizing GUI this is the maximum size
@@ -273,20 +467,42 @@ public class GUIBuilder {
         if(guiPopulator == null){
             guiPopulator = new GUIPopulator(); //The default populator
         }
+        if(prefetchAdjacentPages){
+            guiPopulator.setMaxPrefetchAge(maxPrefetchAgeMillis); //Prefetching itself is enabled for just this GUI, as the populator may be shared
+        }
+        if(asyncContents){
+            guiPopulator.setExecutors(BukkitExecutors.async(InventoryGUIAPI.getInstance()), BukkitExecutors.mainThread(InventoryGUIAPI.getInstance()));
+        }
 
         if(guiPresenter == null){
-            guiPresenter = new GUIPresenter(); //The default presenter
+            guiPresenter = new GUIPresenter(showLoadingPlaceholder, trackInsertCandidates); //The default presenter, only updating changed slots if placeholders are replaced
         }
 
+        GUI gui = null;
         switch(guiStateBehaviour){
             case LOCAL_TO_SESSION: {
-                return new GUI(inventoryType, size, isDynamicSize, contentsProvider, guiPopulator, guiPresenter, actionListeners);
+                gui = new GUI(inventoryType, size, isDynamicSize, contentsProvider, guiPopulator, guiPresenter, actionListeners);
             }
+                break;
             case BOUND_TO_GUI: {
-                return new SharedGUI(inventoryType, size, isDynamicSize, contentsProvider, guiPopulator, guiPresenter, actionListeners);
+                SharedGUI sharedGUI = new SharedGUI(inventoryType, size, isDynamicSize, contentsProvider, guiPopulator, guiPresenter, actionListeners);
+                sharedGUI.setPopulatePerViewer(populatePerViewer);
+                sharedGUI.setShareInventories(shareInventories);
+                gui = sharedGUI;
             }
+                break;
         }
 
-        return null;
+        if(gui != null){
+            gui.setCoalesceUpdates(coalesceUpdates);
+            gui.setLoadingPlaceholder(showLoadingPlaceholder, loadingPaneItem);
+            gui.setPageRetention(maxRetainedPages, retainedRadius);
+            gui.setPrefetchAdjacentPages(prefetchAdjacentPages);
+            if(clicksPerSecond > 0){
+                gui.setClickRateLimiter(new ClickRateLimiter(clicksPerSecond, clickBurst, duplicateClickWindowMillis,
+                        guiClicksPerSecond, guiClickBurst));
+            }
+        }
+        return gui;
     }
 }
@@ -0,0 +1,127 @@
+package me.eddie.inventoryguiapi.gui.guis;
+
+import me.eddie.inventoryguiapi.gui.session.GUISession;
+import me.eddie.inventoryguiapi.plugin.InventoryGUIAPI;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batches up the updates requested for a GUI so that each one is only performed once per tick, no matter how many times
+ * it was requested during that tick. Updates are performed at the start of the next tick.
+ * Requesting an update that recalculates contents supersedes a request that only updates the view.
+ * Updates for players who are no longer viewing the GUI with the session they were requested with by then are skipped.
+ */
+public class GUIUpdateCoalescer {
+    private final GUI gui;
+    private final Map<Object, PendingUpdate> pendingUpdates = new LinkedHashMap<Object, PendingUpdate>(); //Pending updates by what they are updating, in the order they were first requested
+    private boolean flushScheduled = false;
+
+    /**
+     * Create a new GUIUpdateCoalescer
+     * @param gui The GUI to perform the coalesced updates for
+     */
+    public GUIUpdateCoalescer(GUI gui){
+        if(gui == null){
+            throw new IllegalArgumentException("GUI must not be null");
+        }
+        this.gui = gui;
+    }
+
+    private static class PendingUpdate {
+        private Player player;
+        private GUISession session;
+        private boolean recalculateContents;
+
+        private PendingUpdate(Player player, GUISession session, boolean recalculateContents){
+            this.player = player;
+            this.session = session;
+            this.recalculateContents = recalculateContents;
+        }
+    }
+
+    /**
+     * Mark something as needing an update. The update will be performed once, at the start of the next tick.
+     * @param key What is being updated, requests with an equal key are merged into one update
+     * @param player The player to perform the update with
+     * @param session The GUISession to perform the update with
+     * @param recalculateContents True if the contents should be recalculated, False if only the view should be updated
+     */
+    public void requestUpdate(Object key, Player player, GUISession session, boolean recalculateContents){
+        if(key == null || player == null || session == null){
+            throw new IllegalArgumentException();
+        }
+        synchronized (pendingUpdates){
+            PendingUpdate update = pendingUpdates.get(key);
+            if(update == null){
+                pendingUpdates.put(key, new PendingUpdate(player, session, recalculateContents));
+            }
+            else {
+                update.player = player; //Use the most recent requester
+                update.session = session;
+                update.recalculateContents = update.recalculateContents || recalculateContents;
+            }
+
+            if(!flushScheduled){
+                flushScheduled = true;
+                Bukkit.getScheduler().runTask(InventoryGUIAPI.getInstance(), new Runnable() {
+                    @Override
+                    public void run() {
+                        flush();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Forget about a pending update, eg. because the player it was requested for has closed the GUI
+     * @param key What was being updated
+     */
+    public void cancelUpdate(Object key){
+        if(key == null){
+            throw new IllegalArgumentException("Key must not be null");
+        }
+        synchronized (pendingUpdates){
+            pendingUpdates.remove(key);
+        }
+    }
+
+    /**
+     * Check if there are any updates waiting to be performed
+     * @return True if there are, False otherwise
+     */
+    public boolean hasPendingUpdates(){
+        synchronized (pendingUpdates){
+            return !pendingUpdates.isEmpty();
+        }
+    }
+
+    /**
+     * Immediately perform all pending updates
+     */
+    public void flush(){
+        List<PendingUpdate> toPerform;
+        synchronized (pendingUpdates){
+            toPerform = new ArrayList<PendingUpdate>(pendingUpdates.values());
+            pendingUpdates.clear();
+            flushScheduled = false;
+        }
+        for(PendingUpdate update:toPerform){
+            if(!gui.isStillViewing(update.player, update.session)){
+                continue; //Closed the GUI, or opened something else, since the update was requested
+            }
+            if(update.recalculateContents){
+                gui.updateContentsAndViewNow(update.player, update.session);
+            }
+            else {
+                gui.updateViewNow(update.player, update.session);
+            }
+        }
+    }
+}
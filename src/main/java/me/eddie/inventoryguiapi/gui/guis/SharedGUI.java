@@ -5,14 +5,25 @@ import me.eddie.inventoryguiapi.gui.contents.GUIPopulator;
 import me.eddie.inventoryguiapi.gui.events.GUIUpdateEvent;
 import me.eddie.inventoryguiapi.gui.session.GUISession;
 import me.eddie.inventoryguiapi.gui.session.GUIState;
+import me.eddie.inventoryguiapi.gui.session.RequestToken;
 import me.eddie.inventoryguiapi.gui.view.GUIPresenter;
 import me.eddie.inventoryguiapi.plugin.EventCaller;
+import me.eddie.inventoryguiapi.plugin.InventoryGUIAPI;
 import me.eddie.inventoryguiapi.util.Callback;
-import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryType;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Default implementation of a GUI designed to be shared between multiple viewers, with a persistent GUIState
@@ -22,6 +33,12 @@ import java.util.ArrayList;
 public class SharedGUI extends GUI implements SharedInventoryGUI {
 
     private GUIState guiState;
+    private final Map<Player, GUISession> viewers = new LinkedHashMap<Player, GUISession>(); //Players who have this GUI open, and the session they are viewing it through
+    private boolean populatePerViewer = false;
+    private boolean shareInventories = false;
+    private final Map<Integer, Map<Locale, SharedPageSession>> pageSessions = new HashMap<Integer, Map<Locale, SharedPageSession>>(); //Holders of the inventory shared by the viewers of each page, for each language they use
+    private final Map<Integer, RequestToken> pageRequests = new HashMap<Integer, RequestToken>(); //The newest request calculating each page for all of it's viewers
+    private long pageRequestGeneration = 0;
 
     /**
      * Create a new SharedGUI - One where all viewers see the same inventory state (So input slots, etc... are shared)
@@ -55,60 +72,341 @@ public class SharedGUI extends GUI implements SharedInventoryGUI {
     }
 
     @Override
-    protected void updateContentsAndView(final Player player, final GUISession session){
-        if(session == null || !session.getInventoryGUI().equals(this)){
-            return; //Session not for this GUI or not present
+    public void setPageRetention(int maxRetainedPages, int retainedRadius){
+        super.setPageRetention(maxRetainedPages, retainedRadius);
+        guiState.setPageRetention(maxRetainedPages, retainedRadius); //Every viewer shares the one GUIState
+    }
+
+    @Override
+    protected void onViewerOpened(Player player, GUISession session){
+        synchronized (viewers){
+            viewers.put(player, session);
+        }
+    }
+
+    @Override
+    protected void onViewerClosed(Player player, GUISession session){
+        synchronized (viewers){
+            if(viewers.get(player) == session){ //Only if they haven't since opened it again with a different session
+                viewers.remove(player);
+            }
+        }
+        forgetUnviewedPages(null);
+    }
+
+    @Override
+    protected boolean isStillViewing(Player player, GUISession session){
+        return !getViewingSessions(player, session).isEmpty(); //Updates are for every viewer, not just the one requesting it
+    }
+
+    @Override
+    protected void cancelPendingUpdates(Player player, GUISession session){
+        //Pending updates are for every viewer so keep them for the others, they're skipped if nobody is left viewing
+    }
+
+    /**
+     * Get the players currently viewing this GUI
+     * @return A copy of the list of players currently viewing this GUI
+     */
+    public List<Player> getViewers(){
+        List<Player> result = new ArrayList<Player>();
+        for(Map.Entry<Player, GUISession> viewer:getViewingSessions().entrySet()){
+            result.add(viewer.getKey());
+        }
+        return result;
+    }
+
+    //Get the players currently looking at this GUI and the sessions they are looking at it with
+    protected Map<Player, GUISession> getViewingSessions(){
+        Map<Player, GUISession> result = new LinkedHashMap<Player, GUISession>();
+        synchronized (viewers){
+            Iterator<Map.Entry<Player, GUISession>> it = viewers.entrySet().iterator();
+            while(it.hasNext()){
+                Map.Entry<Player, GUISession> viewer = it.next();
+                Player pl = viewer.getKey();
+                if(!pl.isOnline()){ //Left without us noticing
+                    it.remove();
+                    continue;
+                }
+                GUISession playerSession = GUISession.extractSession(pl);
+                if(playerSession != null && playerSession.getInventoryGUI().equals(this)){ //Still viewing this GUI, and not between closing and re-opening it
+                    result.put(pl, playerSession);
+                }
+            }
+        }
+        return result;
+    }
+
+    //Get the players currently looking at this GUI, including the given player if they're looking at it with the given session
+    private Map<Player, GUISession> getViewingSessions(Player player, GUISession session){
+        Map<Player, GUISession> result = getViewingSessions();
+        if(player != null && !result.containsKey(player) && GUISession.extractSession(player) == session){
+            result.put(player, session);
+        }
+        return result;
+    }
+
+    /**
+     * Set whether or not the contents of this GUI should be calculated separately for every viewer.
+     * By default the contents of each page are calculated once and then shown to every viewer of that page, since all
+     * viewers share the same GUIState. Enable this if your GUIContentsProvider really produces different contents
+     * for each viewer.
+     * @param populatePerViewer True if contents should be calculated for each viewer, False if once per page
+     */
+    public void setPopulatePerViewer(boolean populatePerViewer){
+        this.populatePerViewer = populatePerViewer;
+    }
+
+    /**
+     * Whether or not the contents of this GUI are calculated separately for every viewer, instead of once per page
+     * @return True if contents are calculated for each viewer, False if once per page
+     */
+    public boolean isPopulatingPerViewer(){
+        return populatePerViewer;
+    }
+
+    /**
+     * Set whether or not all viewers of a page should be shown the same Bukkit inventory. When enabled, each page's
+     * inventory is only filled once per update no matter how many players are viewing it. Viewers using different
+     * languages are each shown their own inventory, so that it's title and GUIElements are in their language.
+     * This has no effect if contents are calculated separately for every viewer (See {@link #setPopulatePerViewer(boolean)})
+     * @param shareInventories True if viewers of a page should share one inventory, False if each viewer gets their own
+     */
+    public void setShareInventories(boolean shareInventories){
+        this.shareInventories = shareInventories;
+    }
+
+    /**
+     * Whether or not all viewers of a page are shown the same Bukkit inventory
+     * @return True if viewers of a page share one inventory, False if each viewer gets their own
+     */
+    public boolean isSharingInventories(){
+        return shareInventories && !populatePerViewer;
+    }
+
+    /**
+     * Get the GUISession a player is viewing this GUI with
+     * @param viewer The player
+     * @return The GUISession the player is viewing this GUI with, or null if they aren't viewing it
+     */
+    public GUISession getViewerSession(Player viewer){
+        synchronized (viewers){
+            return viewers.get(viewer);
+        }
+    }
+
+    //Get the session holding the inventory shared by all viewers of the given page whose messages are in the given locale
+    private SharedPageSession getPageSession(int page, Locale locale){
+        synchronized (pageSessions){
+            Map<Locale, SharedPageSession> byLocale = pageSessions.get(page);
+            if(byLocale == null){
+                byLocale = new HashMap<Locale, SharedPageSession>(); //HashMap as the locale may be null
+                pageSessions.put(page, byLocale);
+            }
+            SharedPageSession pageSession = byLocale.get(locale);
+            if(pageSession == null){
+                pageSession = new SharedPageSession(this, page, locale);
+                byLocale.put(locale, pageSession);
+            }
+            return pageSession;
         }
+    }
+
+    /**
+     * Get the newest request to calculate the contents of a page for all of it's viewers. When contents are calculated
+     * once per page, this is the request a GUIContentsProvider's results are for rather than the
+     * {@link GUISession#getCurrentRequest()} of the viewer they're calculated with. It's cancelled when superseded by a
+     * newer request for the page, or once nobody is viewing the page.
+     * @param page The page
+     * @return The newest request for the page, or null if there isn't one
+     */
+    public RequestToken getPageRequest(int page){
+        synchronized (pageRequests){
+            return pageRequests.get(page);
+        }
+    }
+
+    //Start a new request to calculate a page for all of it's viewers, superseding any still in progress for it
+    private RequestToken beginPageRequest(int page){
+        synchronized (pageRequests){
+            RequestToken previous = pageRequests.get(page);
+            if(previous != null){
+                previous.cancel();
+            }
+            pageRequestGeneration++;
+            RequestToken request = new RequestToken(pageRequestGeneration, page);
+            pageRequests.put(page, request);
+            return request;
+        }
+    }
+
+    //Forget the shared inventories and cancel the requests of pages that no viewer is on any more, so they don't build up as viewers change page.
+    //The given session's page is kept too, as it may be being shown to a viewer who isn't known to be viewing yet
+    private void forgetUnviewedPages(GUISession keep){
+        Set<Integer> viewedPages = new HashSet<Integer>();
+        if(keep != null){
+            viewedPages.add(keep.getPage());
+        }
+        synchronized (viewers){
+            for(GUISession session:viewers.values()){ //Includes viewers part way through being shown another inventory
+                viewedPages.add(session.getPage());
+            }
+        }
+        synchronized (pageSessions){
+            pageSessions.keySet().retainAll(viewedPages); //Whoever views the page next is shown a new inventory
+        }
+        synchronized (pageRequests){
+            Iterator<Map.Entry<Integer, RequestToken>> it = pageRequests.entrySet().iterator();
+            while(it.hasNext()){
+                Map.Entry<Integer, RequestToken> request = it.next();
+                if(!viewedPages.contains(request.getKey())){
+                    request.getValue().cancel(); //Nobody is left to show the result to
+                    it.remove();
+                }
+            }
+        }
+    }
 
-        for(final Player pl:new ArrayList<Player>(Bukkit.getOnlinePlayers())) { //Find all players that are viewing this GUI
-            final GUISession playerSession = GUISession.extractSession(pl);
-            if (playerSession != null && playerSession.getInventoryGUI().equals(SharedGUI.this)) { //if player viewing this GUI
+    @Override
+    protected void present(Player player, GUISession session){
+        if(isSharingInventories()){
+            guiPresenter.updateSharedView(getPageSession(session.getPage(), InventoryGUIAPI.getMessageLocale(player)), Collections.singletonMap(player, session));
+            forgetUnviewedPages(session); //They may have left a page
+            return;
+        }
+        super.present(player, session);
+    }
+
+    @Override
+    protected Object getUpdateKey(GUISession session){
+        return this; //Every update updates every viewer
+    }
+
+    @Override
+    protected void updateContentsAndViewNow(final Player player, final GUISession session){
+        forgetUnviewedPages(session);
+        Map<Player, GUISession> viewingSessions = getViewingSessions(player, session);
+        if(populatePerViewer){
+            for(Map.Entry<Player, GUISession> viewer:viewingSessions.entrySet()) { //All players that are viewing this GUI
+                final Player pl = viewer.getKey();
+                final GUISession playerSession = viewer.getValue();
                 guiPopulator.populateGUI(playerSession, pl, new Callback<Void>() {
                     @Override
                     public void call(Void param) {
-                        updateView(pl, playerSession);
+                        showUpdatedView(pl, playerSession);
                     }
                 });
             }
+            return;
+        }
+
+        //Every viewer of a page sees the same contents, so only calculate them once per page
+        final Map<Integer, Map<Player, GUISession>> viewersByPage = groupByPage(viewingSessions);
+        final AtomicInteger remainingPages = new AtomicInteger(viewersByPage.size());
+        for(final Map.Entry<Integer, Map<Player, GUISession>> page:viewersByPage.entrySet()){
+            Map.Entry<Player, GUISession> populateFor = page.getValue().entrySet().iterator().next(); //Calculate the page's contents with any of it's viewers
+            RequestToken request = beginPageRequest(page.getKey()); //Owned by the page rather than that viewer, so the others still get the result if they leave
+            guiPopulator.populateGUI(populateFor.getValue(), populateFor.getKey(), request, page.getValue().keySet(), new Callback<Void>() { //With the title in each of their languages
+                @Override
+                public void call(Void param) {
+                    showUpdatedPage(page.getKey(), page.getValue()); //Then show it to all of them
+                    if(remainingPages.decrementAndGet() == 0){
+                        prefetchAdjacentPages(viewersByPage); //Once, after every page, as populating each page discards what was prefetched
+                    }
+                }
+            });
+        }
+    }
+
+    //Prefetch the pages either side of each page being viewed, if the populator prefetches for this GUI
+    private void prefetchAdjacentPages(Map<Integer, Map<Player, GUISession>> viewersByPage){
+        if(!guiPopulator.isPrefetchingAdjacentPages(this)){
+            return;
+        }
+        for(Map<Player, GUISession> pageViewers:viewersByPage.values()){
+            Map.Entry<Player, GUISession> prefetchFor = pageViewers.entrySet().iterator().next();
+            guiPopulator.prefetchAdjacentPages(prefetchFor.getValue(), prefetchFor.getKey(), pageViewers.keySet());
         }
     }
 
     @Override
-    protected void updateView(final Player player, final GUISession session){ //Override to update for every viewing player
-        if(session == null || !session.getInventoryGUI().equals(this)){
-            return; //Session not for this GUI or not present
-        }
-
-        for(Player pl:new ArrayList<Player>(Bukkit.getOnlinePlayers())) { //Find all players that are viewing this GUI
-            GUISession playerSession = GUISession.extractSession(pl);
-            if (playerSession != null && playerSession.getInventoryGUI().equals(SharedGUI.this)) { //if player viewing this GUI
-                guiPresenter.updateView(pl, playerSession); //Show the player the updated GUI
-                GUIUpdateEvent evt = new GUIUpdateEvent(playerSession, pl);
-                EventCaller.fireThroughBukkit(evt);
-                fireEventThroughActionListeners(evt);
+    protected void updateViewNow(final Player player, final GUISession session){ //Override to update for every viewing player
+        forgetUnviewedPages(session);
+        for(Map.Entry<Integer, Map<Player, GUISession>> page:groupByPage(getViewingSessions(player, session)).entrySet()) { //All players that are viewing this GUI
+            showUpdatedPage(page.getKey(), page.getValue());
+        }
+    }
+
+    //Group viewers by the page they're looking at
+    private Map<Integer, Map<Player, GUISession>> groupByPage(Map<Player, GUISession> viewingSessions){
+        Map<Integer, Map<Player, GUISession>> viewersByPage = new LinkedHashMap<Integer, Map<Player, GUISession>>();
+        for(Map.Entry<Player, GUISession> viewer:viewingSessions.entrySet()){
+            Map<Player, GUISession> pageViewers = viewersByPage.get(viewer.getValue().getPage());
+            if(pageViewers == null){
+                pageViewers = new LinkedHashMap<Player, GUISession>();
+                viewersByPage.put(viewer.getValue().getPage(), pageViewers);
+            }
+            pageViewers.put(viewer.getKey(), viewer.getValue());
+        }
+        return viewersByPage;
+    }
+
+    //Group viewers by the locale of the messages they're shown
+    private Map<Locale, Map<Player, GUISession>> groupByLanguage(Map<Player, GUISession> viewingSessions){
+        Map<Locale, Map<Player, GUISession>> viewersByLanguage = new LinkedHashMap<Locale, Map<Player, GUISession>>();
+        for(Map.Entry<Player, GUISession> viewer:viewingSessions.entrySet()){
+            Locale locale = InventoryGUIAPI.getMessageLocale(viewer.getKey());
+            Map<Player, GUISession> languageViewers = viewersByLanguage.get(locale);
+            if(languageViewers == null){
+                languageViewers = new LinkedHashMap<Player, GUISession>();
+                viewersByLanguage.put(locale, languageViewers);
             }
+            languageViewers.put(viewer.getKey(), viewer.getValue());
+        }
+        return viewersByLanguage;
+    }
+
+    //Show all viewers of a page the page's current state
+    private void showUpdatedPage(int page, Map<Player, GUISession> pageViewers){
+        if(isSharingInventories()){
+            for(Map.Entry<Locale, Map<Player, GUISession>> language:groupByLanguage(pageViewers).entrySet()){
+                guiPresenter.updateSharedView(getPageSession(page, language.getKey()), language.getValue()); //Fill the page's inventory once for all of them
+            }
+            for(Map.Entry<Player, GUISession> viewer:pageViewers.entrySet()){
+                fireUpdateEvent(viewer.getKey(), viewer.getValue());
+            }
+            return;
+        }
+        for(Map.Entry<Player, GUISession> viewer:pageViewers.entrySet()){
+            showUpdatedView(viewer.getKey(), viewer.getValue());
         }
     }
 
+    //Show the given viewer the GUI's current state
+    private void showUpdatedView(Player pl, GUISession playerSession){
+        guiPresenter.updateView(pl, playerSession); //Show the player the updated GUI
+        fireUpdateEvent(pl, playerSession);
+    }
+
+    private void fireUpdateEvent(Player pl, GUISession playerSession){
+        GUIUpdateEvent evt = new GUIUpdateEvent(playerSession, pl);
+        EventCaller.fireThroughBukkit(evt);
+        fireEventThroughActionListeners(evt);
+    }
+
     @Override
     public void updateContentsAndView() {
-        for(Player pl:new ArrayList<Player>(Bukkit.getOnlinePlayers())){ //Find a player that is viewing this GUI
-            GUISession session = GUISession.extractSession(pl);
-            if(session != null && session.getInventoryGUI().equals(this)){ //if there is a player viewing this GUI
-                updateContentsAndView(pl, session); //Call to update the view - this updates for all viewing players not just the one specified
-                return;
-            }
+        for(Map.Entry<Player, GUISession> viewer:getViewingSessions().entrySet()){ //Find a player that is viewing this GUI
+            updateContentsAndView(viewer.getKey(), viewer.getValue()); //Call to update the view - this updates for all viewing players not just the one specified
+            return;
         }
     }
 
     @Override
     public void updateView() {
-        for(Player pl:new ArrayList<Player>(Bukkit.getOnlinePlayers())){ //Find a player that is viewing this GUI
-            GUISession session = GUISession.extractSession(pl);
-            if(session != null && session.getInventoryGUI().equals(this)){ //if there is a player viewing this GUI
-                updateView(pl, session); //Call to update the view - this updates for all viewing players not just the one specified
-                return;
-            }
+        for(Map.Entry<Player, GUISession> viewer:getViewingSessions().entrySet()){ //Find a player that is viewing this GUI
+            updateView(viewer.getKey(), viewer.getValue()); //Call to update the view - this updates for all viewing players not just the one specified
+            return;
         }
     }
 }
@@ -0,0 +1,93 @@
+package me.eddie.inventoryguiapi.gui.guis;
+
+import me.eddie.inventoryguiapi.gui.session.GUISession;
+import me.eddie.inventoryguiapi.gui.session.GUIState;
+import me.eddie.inventoryguiapi.gui.session.SharedInventoryHolder;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+
+import java.util.Locale;
+
+/**
+ * Holds the single inventory that all viewers of a page of a SharedGUI using the same language look at, when the SharedGUI
+ * shares inventories between it's viewers. The page and language it holds the inventory of never change, each viewer has
+ * their own GUISession which is used to navigate and can be found with {@link #getViewerSession(Player)}.
+ */
+public class SharedPageSession implements SharedInventoryHolder {
+    private final SharedGUI sharedGUI;
+    private final int page;
+    private final Locale locale;
+    private volatile Inventory inventory = null;
+
+    /**
+     * Construct a new SharedPageSession
+     * @param sharedGUI The SharedGUI whose page this holds the inventory of
+     * @param page The page that this holds the inventory of
+     * @param locale The locale of the messages of the viewers this holds the inventory of (See {@link me.eddie.inventoryguiapi.plugin.InventoryGUIAPI#getMessageLocale(Player)}), may be null
+     */
+    public SharedPageSession(SharedGUI sharedGUI, int page, Locale locale){
+        if(sharedGUI == null){
+            throw new IllegalArgumentException("SharedGUI must not be null");
+        }
+        if(page < 1){
+            throw new IllegalArgumentException("Page must be >= 1");
+        }
+        this.sharedGUI = sharedGUI;
+        this.page = page;
+        this.locale = locale;
+    }
+
+    /**
+     * Get the SharedGUI whose page this holds the inventory of
+     * @return The SharedGUI
+     */
+    public SharedGUI getInventoryGUI(){
+        return sharedGUI;
+    }
+
+    /**
+     * Get the page this holds the inventory of
+     * @return The page
+     */
+    public int getPage(){
+        return page;
+    }
+
+    /**
+     * Get the locale of the messages of the viewers this holds the inventory of, so the inventory is shown in their language
+     * @return The locale, or null if no messages are loaded for them
+     */
+    public Locale getLocale(){
+        return locale;
+    }
+
+    /**
+     * Get the state of the SharedGUI, shared by all of it's viewers
+     * @return The GUIState
+     */
+    public GUIState getGUIState(){
+        return sharedGUI.getGUIState();
+    }
+
+    @Override
+    public GUISession getViewerSession(Player viewer) {
+        return sharedGUI.getViewerSession(viewer);
+    }
+
+    /**
+     * Get the inventory shared by the viewers of this page
+     * @return The inventory, or null if it hasn't been created yet
+     */
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Set the inventory shared by the viewers of this page
+     * @param inventory The inventory, or null to have a new one created the next time the page is shown
+     */
+    public void setInventory(Inventory inventory) {
+        this.inventory = inventory;
+    }
+}
@@ -0,0 +1,197 @@
+package me.eddie.inventoryguiapi.gui.guis;
+
+import me.eddie.inventoryguiapi.gui.elements.GUIElement;
+import me.eddie.inventoryguiapi.gui.session.GUISession;
+import me.eddie.inventoryguiapi.gui.session.InventoryState;
+import me.eddie.inventoryguiapi.gui.view.RenderedContents;
+import me.eddie.inventoryguiapi.util.ItemFingerprint;
+import me.eddie.inventoryguiapi.util.StackCompatibilityUtil;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Where the items of a stack being auto-inserted (Shift clicked) into an inventory will go, calculated in a single pass
+ * over the destination inventory. Like Minecraft, stacks that can be added to are filled first, in slot order, and then
+ * empty slots are used. When what's in the destination inventory is known from {@link RenderedContents}, only the slots
+ * it indexes as empty or partially filled with the item's type are checked, and the fingerprints of their contents are
+ * used to rule out stacks that the item can't be added to without comparing item meta.
+ */
+public final class TransferPlan {
+    private final int[] slots; //Destination slots, in the order they should be filled
+    private final int[] amounts; //Amount planned to go into each destination slot
+    private final boolean[] stacking; //Whether each destination slot already contains some of the item
+    private final int totalAmount;
+    private final ItemStack toMove;
+    private final RenderedContents rendered; //What's known to be in the destination inventory, or null if nothing is
+    private ItemFingerprint moveFingerprint; //Fingerprint of toMove, computed when first needed
+
+    private TransferPlan(int[] slots, int[] amounts, boolean[] stacking, int count, int totalAmount, ItemStack toMove,
+                         RenderedContents rendered, ItemFingerprint moveFingerprint){
+        this.slots = new int[count];
+        this.amounts = new int[count];
+        this.stacking = new boolean[count];
+        System.arraycopy(slots, 0, this.slots, 0, count);
+        System.arraycopy(amounts, 0, this.amounts, 0, count);
+        System.arraycopy(stacking, 0, this.stacking, 0, count);
+        this.totalAmount = totalAmount;
+        this.toMove = toMove;
+        this.rendered = rendered;
+        this.moveFingerprint = moveFingerprint;
+    }
+
+    /**
+     * Plan where a stack should be auto-inserted into an inventory
+     * @param viewer The viewer doing the auto-insert
+     * @param session The GUISession being viewed
+     * @param inventoryState The InventoryState of the GUI if the destination is the GUI, so that slots that GUIElements
+     *                       don't allow auto-inserting into are skipped. Or null if the destination isn't the GUI
+     * @param destInv The inventory the stack is being moved into
+     * @param slotLimit How many slots of the destination inventory may be inserted into, starting from the first
+     * @param toMove The stack being moved
+     * @return The plan, which may not place all of the stack if there isn't room
+     */
+    public static TransferPlan plan(Player viewer, GUISession session, InventoryState inventoryState, Inventory destInv, int slotLimit, ItemStack toMove){
+        if(destInv == null || toMove == null){
+            throw new IllegalArgumentException("Destination inventory and item to move must not be null");
+        }
+        int toPlace = toMove.getAmount();
+        int maxStackSize = toMove.getMaxStackSize();
+        int size = Math.min(slotLimit, destInv.getSize());
+
+        int[] stackSlots = new int[size];
+        int[] stackAmounts = new int[size];
+        int stackCount = 0;
+        int stackCapacity = 0;
+        int[] emptySlots = new int[size];
+        int emptyCount = 0;
+
+        RenderedContents rendered = RenderedContents.get(destInv);
+        if(rendered != null && rendered.getSize() != destInv.getSize()){
+            rendered = null; //Out of date, so every slot must be checked
+        }
+        ItemFingerprint moveFingerprint = null; //Computed the first time a slot's fingerprint is known
+        for(int i=nextCandidate(rendered, toMove, 0);i >= 0 && i<size && stackCapacity < toPlace;i=nextCandidate(rendered, toMove, i+1)){ //Once existing stacks can take everything, empty slots aren't needed
+            ItemStack it = destInv.getItem(i);
+            boolean empty = it == null || it.getType().equals(Material.AIR);
+            if(!empty && (!it.getType().equals(toMove.getType()) || it.getAmount() >= it.getMaxStackSize())){
+                continue; //Can't go here, checked cheaply before anything else
+            }
+            GUIElement inSlot = inventoryState == null ? null : inventoryState.getElementInSlot(i); //The GUIElement in this slot if dest is the GUI
+            if(inSlot != null && !inSlot.canAutoInsertIntoSlot(viewer, session)){
+                continue;
+            }
+            if(empty){
+                emptySlots[emptyCount++] = i;
+            }
+            else {
+                ItemFingerprint slotFingerprint = rendered == null ? null : rendered.getFingerprint(i, it);
+                if(slotFingerprint != null && moveFingerprint == null){
+                    moveFingerprint = ItemFingerprint.of(toMove);
+                }
+                if(!StackCompatibilityUtil.canStack(it, slotFingerprint, toMove, moveFingerprint)){
+                    continue;
+                }
+                stackSlots[stackCount] = i;
+                stackAmounts[stackCount] = it.getMaxStackSize() - it.getAmount();
+                stackCapacity += stackAmounts[stackCount];
+                stackCount++;
+            }
+        }
+
+        //Fill existing stacks first, then empty slots
+        int[] slots = new int[stackCount + emptyCount];
+        int[] amounts = new int[stackCount + emptyCount];
+        boolean[] stacking = new boolean[stackCount + emptyCount];
+        int count = 0;
+        int remaining = toPlace;
+        for(int i=0;i<stackCount && remaining > 0;i++){
+            int amount = Math.min(remaining, stackAmounts[i]);
+            slots[count] = stackSlots[i];
+            amounts[count] = amount;
+            stacking[count] = true;
+            count++;
+            remaining -= amount;
+        }
+        for(int i=0;i<emptyCount && remaining > 0;i++){
+            int amount = Math.min(remaining, maxStackSize);
+            slots[count] = emptySlots[i];
+            amounts[count] = amount;
+            count++;
+            remaining -= amount;
+        }
+        return new TransferPlan(slots, amounts, stacking, count, toPlace - remaining, toMove, rendered, moveFingerprint);
+    }
+
+    /**
+     * Check if the stack being moved can be added to what's now in a slot of the destination inventory, eg. because
+     * the slot may have changed since the plan was made
+     * @param slot The slot of the destination inventory
+     * @param inSlot What's now in the slot
+     * @return True if the stack being moved can be added to it, False otherwise
+     */
+    public boolean canStackWith(int slot, ItemStack inSlot){
+        ItemFingerprint slotFingerprint = rendered == null ? null : rendered.getFingerprint(slot, inSlot);
+        if(slotFingerprint != null && moveFingerprint == null){
+            moveFingerprint = ItemFingerprint.of(toMove);
+        }
+        return StackCompatibilityUtil.canStack(inSlot, slotFingerprint, toMove, moveFingerprint);
+    }
+
+    //Get the next slot to check from the given slot onwards, or -1 if there are none left
+    private static int nextCandidate(RenderedContents rendered, ItemStack toMove, int from){
+        return rendered == null ? from : rendered.nextInsertCandidate(toMove.getType(), from);
+    }
+
+    /**
+     * Get the amount of destination slots in this plan
+     * @return The amount of destination slots
+     */
+    public int size(){
+        return slots.length;
+    }
+
+    /**
+     * Check if there is nowhere to move the stack to
+     * @return True if nothing can be moved, False otherwise
+     */
+    public boolean isEmpty(){
+        return slots.length == 0;
+    }
+
+    /**
+     * Get a destination slot of this plan
+     * @param index The index of the destination, in the order they should be filled
+     * @return The slot in the destination inventory
+     */
+    public int getSlot(int index){
+        return slots[index];
+    }
+
+    /**
+     * Get the amount planned to be moved into a destination slot
+     * @param index The index of the destination, in the order they should be filled
+     * @return The amount to move into the slot
+     */
+    public int getAmount(int index){
+        return amounts[index];
+    }
+
+    /**
+     * Whether or not a destination slot already contained some of the item when planned
+     * @param index The index of the destination, in the order they should be filled
+     * @return True if the item is being added to an existing stack, False if it's going into an empty slot
+     */
+    public boolean isStacking(int index){
+        return stacking[index];
+    }
+
+    /**
+     * Get the total amount of the stack that this plan moves
+     * @return The amount moved
+     */
+    public int getTotalAmount(){
+        return totalAmount;
+    }
+}
@@ -1,34 +1,58 @@
 package me.eddie.inventoryguiapi.gui.session;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * A simple implementation of the Attributable interface that uses a hashmap
+ * A simple implementation of the TypedAttributable interface that uses a hashmap. Typed attributes are stored in it
+ * under their name, and those of interned keys are also kept in an array indexed by the id of their key
  */
-public abstract class AbstractAttributable implements Attributable {
-    private Map<Object, Object> attributes = new HashMap<Object, Object>();
+public abstract class AbstractAttributable implements TypedAttributable {
+    private static final Object NULL_VALUE = new Object(); //Stored for typed attributes that exist but are null
+    private Map<Object, Object> attributes = Collections.synchronizedMap(new HashMap<Object, Object>()); //Synchronized as contents providers may run off of the server thread
+    private Object[] typedAttributes = new Object[0]; //Values of interned typed attributes by key id, null if not present. A copy of what's in attributes, so guarded by it
 
     @Override
     public Object getAttribute(Object key) {
         if(key == null){
             throw new IllegalArgumentException("Key cannot be null");
         }
+        if(key instanceof AttributeKey){
+            return getAttribute((AttributeKey<?>) key);
+        }
         return attributes.get(key);
     }
 
     @Override
     public boolean hasAttribute(Object key){
+        if(key instanceof AttributeKey){
+            return hasAttribute((AttributeKey<?>) key);
+        }
         return attributes.containsKey(key);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public void putAttribute(Object key, Object value) {
         if(key == null){
             throw new IllegalArgumentException("Key cannot be null");
         }
+        if(key instanceof AttributeKey){
+            putAttribute((AttributeKey<Object>) key, value);
+            return;
+        }
 
-        attributes.put(key, value);
+        AttributeKey<?> typedKey = key instanceof String ? AttributeKey.getInterned((String) key) : null;
+        if(typedKey == null){
+            attributes.put(key, value);
+            return;
+        }
+        checkType(typedKey, value);
+        synchronized (attributes){
+            attributes.put(key, value);
+            setTyped(typedKey, value); //So it's seen by the typed key too
+        }
     }
 
     @Override
@@ -36,7 +60,104 @@ public abstract class AbstractAttributable implements Attributable {
         if(key == null){
             throw new IllegalArgumentException("Key cannot be null");
         }
+        if(key instanceof AttributeKey){
+            return removeAttribute((AttributeKey<?>) key);
+        }
+
+        AttributeKey<?> typedKey = key instanceof String ? AttributeKey.getInterned((String) key) : null;
+        if(typedKey == null){
+            return attributes.remove(key);
+        }
+        synchronized (attributes){
+            clearTyped(typedKey);
+            return attributes.remove(key);
+        }
+    }
+
+    @Override
+    public <T> T getAttribute(AttributeKey<T> key) {
+        if(key == null){
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        if(!key.isInterned()){
+            return key.getType().cast(attributes.get(key.getName()));
+        }
+        Object value;
+        synchronized (attributes){
+            int id = key.getId();
+            value = id < typedAttributes.length ? typedAttributes[id] : null;
+        }
+        return value == null || value == NULL_VALUE ? null : key.getType().cast(value);
+    }
 
-        return attributes.remove(key);
+    @Override
+    public boolean hasAttribute(AttributeKey<?> key) {
+        if(key == null){
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        if(!key.isInterned()){
+            return attributes.containsKey(key.getName());
+        }
+        synchronized (attributes){
+            int id = key.getId();
+            return id < typedAttributes.length && typedAttributes[id] != null;
+        }
+    }
+
+    @Override
+    public <T> void putAttribute(AttributeKey<T> key, T value) {
+        if(key == null){
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        checkType(key, value);
+        AttributeKey<?> interned = key.isInterned() ? key : AttributeKey.getInterned(key.getName());
+        synchronized (attributes){
+            attributes.put(key.getName(), value); //Under it's name, so it's seen by the Object-keyed methods too
+            if(interned != null){
+                setTyped(interned, value);
+            }
+        }
+    }
+
+    @Override
+    public <T> T removeAttribute(AttributeKey<T> key) {
+        if(key == null){
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        AttributeKey<?> interned = key.isInterned() ? key : AttributeKey.getInterned(key.getName());
+        Object previous;
+        synchronized (attributes){
+            if(interned != null){
+                clearTyped(interned);
+            }
+            previous = attributes.remove(key.getName());
+        }
+        return key.getType().cast(previous);
+    }
+
+    //Make sure a value can be stored for a typed attribute
+    private static void checkType(AttributeKey<?> key, Object value){
+        if(value != null && !key.getType().isInstance(value)){
+            throw new IllegalArgumentException("Value for "+key.getName()+" must be a "+key.getType().getName());
+        }
+    }
+
+    //Keep the value of an interned typed attribute in the array, whilst holding the lock of attributes
+    private void setTyped(AttributeKey<?> key, Object value){
+        int id = key.getId();
+        if(id >= typedAttributes.length){
+            Object[] grown = new Object[Math.max(id+1, typedAttributes.length*2)];
+            System.arraycopy(typedAttributes, 0, grown, 0, typedAttributes.length);
+            typedAttributes = grown;
+        }
+        typedAttributes[id] = value == null ? NULL_VALUE : value;
+    }
+
+    //Remove the value of an interned typed attribute from the array, whilst holding the lock of attributes
+    private void clearTyped(AttributeKey<?> key){
+        int id = key.getId();
+        if(id < typedAttributes.length){
+            typedAttributes[id] = null;
+        }
     }
 }
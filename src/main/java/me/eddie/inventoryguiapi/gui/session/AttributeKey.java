@@ -0,0 +1,118 @@
+package me.eddie.inventoryguiapi.gui.session;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A typed key for an attribute of an Attributable. The value of a typed attribute is stored under the key's name, so it's
+ * the same attribute as the one with that name as it's Object key.
+ * Keys got with {@link #of(String, Class)} are interned by name, so getting the key for the same name twice returns the
+ * same key, and each has a small unique id that Attributables use to also keep its value in an array for faster lookup.
+ * Interned keys are never freed, so they should only be used for a fixed set of names and be created once and kept, eg.
+ * in a static field. Keys whose names are made as the program runs (eg. one per ID) should be created with
+ * {@link #create(String, Class)} instead.
+ * @param <T> The type of the attribute's value
+ */
+public final class AttributeKey<T> {
+    private static final int NOT_INTERNED = -1;
+    private static final ConcurrentMap<String, AttributeKey<?>> keysByName = new ConcurrentHashMap<String, AttributeKey<?>>();
+    private static final AtomicInteger nextId = new AtomicInteger(0);
+
+    private final String name;
+    private final Class<T> type;
+    private final int id;
+
+    private AttributeKey(String name, Class<T> type, int id){
+        this.name = name;
+        this.type = type;
+        this.id = id;
+    }
+
+    /**
+     * Get the interned key for an attribute, creating it if it doesn't exist yet
+     * @param name The name of the attribute, which should be unique to whatever is using it
+     * @param type The type of the attribute's value
+     * @param <T> The type of the attribute's value
+     * @return The key for the attribute
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> AttributeKey<T> of(String name, Class<T> type){
+        if(name == null || type == null){
+            throw new IllegalArgumentException("Name and type must not be null");
+        }
+        AttributeKey<?> key = keysByName.get(name);
+        if(key == null){
+            AttributeKey<?> created = new AttributeKey<T>(name, type, nextId.getAndIncrement());
+            key = keysByName.putIfAbsent(name, created);
+            if(key == null){
+                key = created;
+            } //Otherwise another thread created it first, the id we took is just never used
+        }
+        if(!key.type.equals(type)){
+            throw new IllegalArgumentException("Attribute "+name+" already exists with type "+key.type.getName());
+        }
+        return (AttributeKey<T>) key;
+    }
+
+    /**
+     * Create a key for an attribute that isn't interned, so is freed once it's no longer used. It's value is only stored
+     * under it's name, so is a little slower to look up than that of an interned key.
+     * @param name The name of the attribute, which should be unique to whatever is using it
+     * @param type The type of the attribute's value
+     * @param <T> The type of the attribute's value
+     * @return The key for the attribute
+     */
+    public static <T> AttributeKey<T> create(String name, Class<T> type){
+        if(name == null || type == null){
+            throw new IllegalArgumentException("Name and type must not be null");
+        }
+        AttributeKey<?> interned = keysByName.get(name);
+        if(interned != null && !interned.type.equals(type)){
+            throw new IllegalArgumentException("Attribute "+name+" already exists with type "+interned.type.getName());
+        }
+        return new AttributeKey<T>(name, type, NOT_INTERNED);
+    }
+
+    //Get the interned key with the given name, or null if there isn't one
+    static AttributeKey<?> getInterned(String name){
+        return keysByName.get(name);
+    }
+
+    /**
+     * Get the name of this attribute
+     * @return The name
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Get the type of this attribute's value
+     * @return The type
+     */
+    public Class<T> getType(){
+        return type;
+    }
+
+    /**
+     * Whether or not this key is interned, and so has an id
+     * @return True if this key was got with {@link #of(String, Class)}, False if it was created with {@link #create(String, Class)}
+     */
+    public boolean isInterned(){
+        return id != NOT_INTERNED;
+    }
+
+    /**
+     * Get the unique id of this key, used to index attribute values
+     * @return The id, greater than or equal to 0, or -1 if this key isn't interned
+     */
+    public int getId(){
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "AttributeKey{"+name+"}";
+    }
+}
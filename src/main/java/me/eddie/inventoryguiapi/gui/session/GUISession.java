@@ -23,7 +23,7 @@ public class GUISession implements InventoryHolder {
         if(oInv == null){
             return null;
         }
-        return extractSession(oInv.getTopInventory()); //Get the inventory the player is looking at (Bottom is always their own inventory)
+        return extractSession(oInv.getTopInventory(), player); //Get the inventory the player is looking at (Bottom is always their own inventory)
     }
 
     /**
@@ -42,9 +42,32 @@ public class GUISession implements InventoryHolder {
         return null;
     }
 
+    /**
+     * Get the GUISession a player views a given inventory with, or null if none exists for this inventory. Unlike
+     * {@link #extractSession(Inventory)} this also finds the viewer's GUISession for inventories shared by many viewers.
+     * @param inventory The inventory to get the GUISession from
+     * @param viewer The viewer of the inventory
+     * @return The GUISession or null if none exists
+     */
+    public static GUISession extractSession(Inventory inventory, Player viewer){
+        if(inventory == null){
+            return null;
+        }
+        InventoryHolder ih = inventory.getHolder();
+        if(ih instanceof GUISession){
+            return (GUISession) ih;
+        }
+        if(ih instanceof SharedInventoryHolder && viewer != null){
+            return ((SharedInventoryHolder) ih).getViewerSession(viewer);
+        }
+        return null;
+    }
+
     private InventoryGUI inventoryGUI; //GUI Being viewed
     private int page = 1; //Currently displayed page number
     private GUIState guiState; //The state of the GUI being viewed, eg. what is currently being displayed
+    private long requestGeneration = 0;
+    private RequestToken currentRequest = null; //The newest request for the contents of this session, if any
 
     /**
      * Construct a new GUISession
@@ -93,6 +116,7 @@ public class GUISession implements InventoryHolder {
             throw new IllegalArgumentException("Page must be >= 1");
         }
         this.page = page;
+        guiState.updateViewedPage(this, page); //So the page being viewed is kept
     }
 
     /**
@@ -103,6 +127,37 @@ public class GUISession implements InventoryHolder {
         return guiState;
     }
 
+    /**
+     * Start a new request to calculate the contents of the page currently being viewed. Any request already in progress
+     * for this session is cancelled, as it has been superseded.
+     * @return The RequestToken of the new request
+     */
+    public synchronized RequestToken beginRequest() {
+        if(currentRequest != null){
+            currentRequest.cancel();
+        }
+        requestGeneration++;
+        currentRequest = new RequestToken(requestGeneration, page);
+        return currentRequest;
+    }
+
+    /**
+     * Get the newest request to calculate the contents of this session
+     * @return The RequestToken of the newest request, or null if none has been made
+     */
+    public synchronized RequestToken getCurrentRequest() {
+        return currentRequest;
+    }
+
+    /**
+     * Cancel any request in progress to calculate the contents of this session, eg. because it has been closed
+     */
+    public synchronized void cancelRequests() {
+        if(currentRequest != null){
+            currentRequest.cancel();
+        }
+    }
+
     /**
      * Method inherited from Bukkit's InventoryHolder. Will always return null
      * @return Null
@@ -1,13 +1,61 @@
 package me.eddie.inventoryguiapi.gui.session;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class represents the current state of an InventoryGUI being displayed. It keeps track of all the pages of the GUI and their respective InventoryStates
+ * Reading the InventoryStates never blocks, only adding and removing pages takes a lock.
  */
 public class GUIState extends AbstractAttributable {
-    private Map<Integer, InventoryState> inventoryStatesByPage = new HashMap<Integer, InventoryState>(); //Map that keeps track of inventory states by page; when a page is open it's inventory state will either be created and put into this map, or if one already exists then it will be re-used (But with the contents recalculated naturally)
+    /**
+     * Value of maxRetainedPages meaning that every page's InventoryState is kept
+     */
+    public static final int RETAIN_ALL_PAGES = 0;
+    /**
+     * Maximum age of a prefetched page meaning that it can be any age
+     */
+    public static final long ANY_PREFETCH_AGE = -1;
+
+    private final ConcurrentMap<Integer, PageEntry> inventoryStatesByPage = new ConcurrentHashMap<Integer, PageEntry>(); //Map that keeps track of inventory states by page; when a page is open it's inventory state will either be created and put into this map, or if one already exists then it will be re-used (But with the contents recalculated naturally)
+    private final ConcurrentMap<Integer, PrefetchedEntry> prefetchedStatesByPage = new ConcurrentHashMap<Integer, PrefetchedEntry>(); //Pages calculated ahead of being viewed, kept separate so that what's being displayed isn't changed
+    private final ConcurrentMap<Integer, RequestToken> prefetchRequestsByPage = new ConcurrentHashMap<Integer, RequestToken>(); //The newest request calculating each page ahead of being viewed
+    private final AtomicLong prefetchGeneration = new AtomicLong(0);
+    private final Object writeLock = new Object(); //Held whilst adding pages, so that a page is only ever created once and eviction sees a consistent set of pages
+    private final AtomicLong useClock = new AtomicLong(0); //Source of the last used stamps of pages
+    private volatile int maxRetainedPages = RETAIN_ALL_PAGES;
+    private volatile int retainedRadius = 0;
+    private final AtomicLong evictedPages = new AtomicLong(0);
+    private final Set<Integer> evictedPageNumbers = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>()); //Pages evicted and not created again since
+    private final ConcurrentMap<Object, Integer> viewedPages = new ConcurrentHashMap<Object, Integer>(); //The page each viewer is looking at, these are never evicted
+
+    private static class PageEntry {
+        private final InventoryState state;
+        private volatile long lastUsed;
+
+        private PageEntry(InventoryState state, long lastUsed){
+            this.state = state;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private static class PrefetchedEntry {
+        private final InventoryState state;
+        private final long prefetchedAt; //System.nanoTime() when it was stored
+
+        private PrefetchedEntry(InventoryState state, long prefetchedAt){
+            this.state = state;
+            this.prefetchedAt = prefetchedAt;
+        }
+    }
 
     /**
      * Create a new GUIState
@@ -21,7 +69,161 @@ public class GUIState extends AbstractAttributable {
     }
 
     public Map<Integer, InventoryState> getInventoryStatesByPage(){
-        return new HashMap<Integer, InventoryState>(inventoryStatesByPage); //Return a clone of the map so that they cannot modify our version and vice versa
+        Map<Integer, InventoryState> states = new HashMap<Integer, InventoryState>(); //Return a clone of the map so that they cannot modify our version and vice versa
+        for(Map.Entry<Integer, PageEntry> entry:inventoryStatesByPage.entrySet()){
+            states.put(entry.getKey(), entry.getValue().state);
+        }
+        return states;
+    }
+
+    /**
+     * Limit how many pages have their InventoryState kept. When more pages than this have states, the states of the least
+     * recently used pages are removed, except for those within the given radius of the page being accessed. A removed
+     * page is simply calculated again if it's viewed again.
+     * Pages recorded as being looked at by a viewer (See {@link #setViewedPage(Object, int)}) are never removed, even if
+     * that means keeping more pages than the limit.
+     * @param maxRetainedPages The maximum amount of pages to keep states for, or {@link #RETAIN_ALL_PAGES} (Default) for no limit
+     * @param retainedRadius How many pages either side of the page being accessed are never removed
+     */
+    public void setPageRetention(int maxRetainedPages, int retainedRadius){
+        if(maxRetainedPages < 0 || retainedRadius < 0){
+            throw new IllegalArgumentException("Page retention limits must be >= 0");
+        }
+        if(maxRetainedPages != RETAIN_ALL_PAGES && maxRetainedPages < retainedRadius*2+1){
+            throw new IllegalArgumentException("Must retain at least as many pages as are covered by the radius ("+(retainedRadius*2+1)+")");
+        }
+        this.maxRetainedPages = maxRetainedPages;
+        this.retainedRadius = retainedRadius;
+    }
+
+    /**
+     * Get the maximum amount of pages that have their InventoryState kept
+     * @return The maximum, or {@link #RETAIN_ALL_PAGES} if there is no limit
+     */
+    public int getMaxRetainedPages(){
+        return maxRetainedPages;
+    }
+
+    /**
+     * Get how many pages either side of the page being accessed are never removed
+     * @return The radius
+     */
+    public int getRetainedRadius(){
+        return retainedRadius;
+    }
+
+    /**
+     * Get how many page InventoryStates have been removed because of the page retention limit
+     * @return The amount of pages removed
+     */
+    public long getEvictedPageCount(){
+        return evictedPages.get();
+    }
+
+    /**
+     * Check if a page's InventoryState was removed because of the page retention limit, and hasn't been created again since
+     * @param page The page to check
+     * @return True if it was removed and needs calculating again, False otherwise
+     */
+    public boolean wasEvicted(int page){
+        return !evictedPageNumbers.isEmpty() && evictedPageNumbers.contains(page);
+    }
+
+    /**
+     * Record the page a viewer is looking at, so that it is never removed because of the page retention limit
+     * @param viewer What is looking at the page, eg. the viewer's GUISession
+     * @param page The page being looked at
+     */
+    public void setViewedPage(Object viewer, int page){
+        if(viewer == null){
+            throw new IllegalArgumentException("Viewer must not be null");
+        }
+        if(page < 1){
+            throw new IllegalArgumentException("Page must be >= 1");
+        }
+        viewedPages.put(viewer, page);
+    }
+
+    /**
+     * Change the page a viewer is looking at, if they have been recorded as looking at one
+     * @param viewer What is looking at the page, eg. the viewer's GUISession
+     * @param page The page now being looked at
+     */
+    public void updateViewedPage(Object viewer, int page){
+        if(viewer == null){
+            throw new IllegalArgumentException("Viewer must not be null");
+        }
+        if(page < 1){
+            throw new IllegalArgumentException("Page must be >= 1");
+        }
+        viewedPages.replace(viewer, page);
+    }
+
+    /**
+     * Stop recording the page a viewer is looking at, eg. because they've closed the GUI. Once no viewers are left,
+     * pages being calculated ahead of being viewed are cancelled and anything already prefetched is discarded.
+     * @param viewer What was looking at the page
+     */
+    public void removeViewer(Object viewer){
+        if(viewer == null){
+            throw new IllegalArgumentException("Viewer must not be null");
+        }
+        viewedPages.remove(viewer);
+        if(viewedPages.isEmpty()){
+            clearPrefetchedInventoryStates(); //Nobody is left to change page to them
+        }
+    }
+
+    //Record that a page has just been used, for choosing which pages to evict
+    private void markUsed(PageEntry entry){
+        if(maxRetainedPages != RETAIN_ALL_PAGES){ //Only needed when pages may be evicted
+            entry.lastUsed = useClock.incrementAndGet();
+        }
+    }
+
+    //Remove the least recently used pages until within the retention limit. Must be called holding the writeLock
+    private void evictPages(int accessedPage){
+        int max = maxRetainedPages;
+        int radius = retainedRadius;
+        if(max == RETAIN_ALL_PAGES){
+            return;
+        }
+        Set<Integer> viewed = null;
+        while(inventoryStatesByPage.size() > max){
+            if(viewed == null){
+                viewed = new HashSet<Integer>(viewedPages.values());
+            }
+            Map.Entry<Integer, PageEntry> leastRecentlyUsed = null;
+            for(Map.Entry<Integer, PageEntry> entry:inventoryStatesByPage.entrySet()){
+                if(Math.abs(entry.getKey() - accessedPage) <= radius || viewed.contains(entry.getKey())){
+                    continue; //Kept
+                }
+                if(leastRecentlyUsed == null || entry.getValue().lastUsed < leastRecentlyUsed.getValue().lastUsed){
+                    leastRecentlyUsed = entry;
+                }
+            }
+            if(leastRecentlyUsed == null){
+                break; //Everything left is kept
+            }
+            inventoryStatesByPage.remove(leastRecentlyUsed.getKey(), leastRecentlyUsed.getValue());
+            evictedPageNumbers.add(leastRecentlyUsed.getKey());
+            evictedPages.incrementAndGet();
+        }
+        //Prefetched pages are only useful next to the page being viewed
+        Iterator<Integer> prefetched = prefetchedStatesByPage.keySet().iterator();
+        while(prefetched.hasNext()){
+            if(Math.abs(prefetched.next() - accessedPage) > Math.max(1, radius)){
+                prefetched.remove();
+            }
+        }
+        Iterator<Map.Entry<Integer, RequestToken>> prefetching = prefetchRequestsByPage.entrySet().iterator();
+        while(prefetching.hasNext()){
+            Map.Entry<Integer, RequestToken> request = prefetching.next();
+            if(Math.abs(request.getKey() - accessedPage) > Math.max(1, radius)){
+                request.getValue().cancel();
+                prefetching.remove();
+            }
+        }
     }
 
     /**
@@ -45,11 +247,17 @@ public class GUIState extends AbstractAttributable {
         if(page < 1){
             throw new IllegalArgumentException("Page must be >= 1");
         }
-        synchronized (inventoryStatesByPage){ //Synchronized to prevent concurrent threads causing issues
-            InventoryState state = getExistingInventoryState(page);
+        InventoryState state = getExistingInventoryState(page);
+        if(state != null){
+            return state;
+        }
+        synchronized (writeLock){ //Synchronized to prevent concurrent threads both creating the page
+            state = getExistingInventoryState(page);
             if(state == null){
                 state = genNewInventoryState();
-                inventoryStatesByPage.put(page, state); //Put into our map the inventory state since we want callers to this to always receive the same inventory state
+                inventoryStatesByPage.put(page, new PageEntry(state, useClock.incrementAndGet())); //Put into our map the inventory state since we want callers to this to always receive the same inventory state
+                evictedPageNumbers.remove(page);
+                evictPages(page);
             }
 
             return state;
@@ -64,9 +272,7 @@ public class GUIState extends AbstractAttributable {
         if(page < 1){
             throw new IllegalArgumentException("Page must be >= 1");
         }
-        synchronized (inventoryStatesByPage) {
-            inventoryStatesByPage.remove(page);
-        }
+        inventoryStatesByPage.remove(page);
     }
 
     /**
@@ -81,11 +287,121 @@ public class GUIState extends AbstractAttributable {
         if(state == null){
             throw new IllegalArgumentException("InventoryState must not be null");
         }
-        synchronized (inventoryStatesByPage){
-            inventoryStatesByPage.put(page, state);
+        PageEntry existing = inventoryStatesByPage.get(page);
+        if(existing != null && existing.state == state){ //Already the state of this page, which is the usual case
+            markUsed(existing);
+            return;
+        }
+        synchronized (writeLock){
+            inventoryStatesByPage.put(page, new PageEntry(state, useClock.incrementAndGet()));
+            evictedPageNumbers.remove(page);
+            evictPages(page);
         }
     }
 
+    /**
+     * Start a new request to calculate a page before it is viewed. Any prefetch request already in progress for the page
+     * is cancelled, as it has been superseded. These are separate from the requests of the sessions viewing this
+     * GUIState, so that calculating pages ahead of time never cancels, or is cancelled by, calculating the page being viewed.
+     * @param page The page to prefetch
+     * @return The RequestToken of the new request
+     */
+    public RequestToken beginPrefetchRequest(int page){
+        if(page < 1){
+            throw new IllegalArgumentException("Page must be >= 1");
+        }
+        RequestToken request = new RequestToken(prefetchGeneration.incrementAndGet(), page);
+        RequestToken previous = prefetchRequestsByPage.put(page, request);
+        if(previous != null){
+            previous.cancel();
+        }
+        return request;
+    }
+
+    /**
+     * Store an InventoryState that has been calculated for a page before it is viewed as the result of a prefetch request,
+     * replacing any that was already stored. Nothing is stored if the request has been cancelled or superseded since.
+     * @param page The page the InventoryState was calculated for
+     * @param state The calculated InventoryState
+     * @param request The request it was calculated for, from {@link #beginPrefetchRequest(int)}
+     * @return True if it was stored, False if the request is no longer wanted
+     */
+    public boolean putPrefetchedInventoryState(int page, InventoryState state, RequestToken request){
+        if(request == null){
+            throw new IllegalArgumentException("RequestToken must not be null");
+        }
+        if(state == null){
+            throw new IllegalArgumentException("InventoryState must not be null");
+        }
+        if(request.isCancelled() || prefetchRequestsByPage.get(page) != request){
+            return false;
+        }
+        PrefetchedEntry entry = new PrefetchedEntry(state, System.nanoTime());
+        prefetchedStatesByPage.put(page, entry);
+        if(!prefetchRequestsByPage.remove(page, request)){ //Cleared or superseded whilst it was being stored
+            prefetchedStatesByPage.remove(page, entry);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Store an InventoryState that has been calculated for a page before it is viewed, replacing any that was already stored
+     * @param page The page the InventoryState was calculated for
+     * @param state The calculated InventoryState
+     */
+    public void putPrefetchedInventoryState(int page, InventoryState state){
+        if(page < 1){
+            throw new IllegalArgumentException("Page must be >= 1");
+        }
+        if(state == null){
+            throw new IllegalArgumentException("InventoryState must not be null");
+        }
+        prefetchedStatesByPage.put(page, new PrefetchedEntry(state, System.nanoTime()));
+    }
+
+    /**
+     * Remove and return the InventoryState that was calculated for a page before it was viewed
+     * @param page The page to get the prefetched InventoryState of
+     * @return The prefetched InventoryState, or null if none exists
+     */
+    public InventoryState takePrefetchedInventoryState(int page){
+        return takePrefetchedInventoryState(page, ANY_PREFETCH_AGE);
+    }
+
+    /**
+     * Remove and return the InventoryState that was calculated for a page before it was viewed, if it isn't too old
+     * @param page The page to get the prefetched InventoryState of
+     * @param maxAgeMillis How long ago, in milliseconds, it can have been calculated, or {@link #ANY_PREFETCH_AGE}
+     * @return The prefetched InventoryState, or null if none exists or it is too old (In which case it is still removed)
+     */
+    public InventoryState takePrefetchedInventoryState(int page, long maxAgeMillis){
+        if(page < 1){
+            throw new IllegalArgumentException("Page must be >= 1");
+        }
+        PrefetchedEntry entry = prefetchedStatesByPage.remove(page);
+        if(entry == null){
+            return null;
+        }
+        if(maxAgeMillis != ANY_PREFETCH_AGE && System.nanoTime() - entry.prefetchedAt > TimeUnit.MILLISECONDS.toNanos(maxAgeMillis)){
+            return null; //Too old to be trusted, so calculate it again
+        }
+        return entry.state;
+    }
+
+    /**
+     * Remove every InventoryState that was calculated for a page before it was viewed, and cancel any prefetch requests
+     * still in progress, eg. because the GUI's contents have been recalculated since
+     */
+    public void clearPrefetchedInventoryStates(){
+        Iterator<RequestToken> prefetching = prefetchRequestsByPage.values().iterator();
+        while(prefetching.hasNext()){
+            prefetching.next().cancel();
+            prefetching.remove();
+        }
+        prefetchedStatesByPage.clear();
+    }
+
     /**
      * Get the InventoryState for the given page, or null if none exists
      * @param page The page to get the state of
@@ -95,6 +411,11 @@ public class GUIState extends AbstractAttributable {
         if(page < 1){
             throw new IllegalArgumentException("Page must be >= 1");
         }
-        return inventoryStatesByPage.get(page);
+        PageEntry entry = inventoryStatesByPage.get(page);
+        if(entry == null){
+            return null;
+        }
+        markUsed(entry);
+        return entry.state;
     }
 }
@@ -0,0 +1,127 @@
+package me.eddie.inventoryguiapi.gui.session;
+
+import me.eddie.inventoryguiapi.gui.elements.GUIElement;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of where the GUIElements of an InventoryState are positioned, indexed by slot.
+ * As it never changes it can be read from any thread without locking or copying.
+ */
+public final class InventoryLayout {
+    /**
+     * A layout with no GUIElements in it
+     */
+    public static final InventoryLayout EMPTY = new InventoryLayout(new GUIElement[0]);
+
+    private final GUIElement[] elementsBySlot; //Trimmed so that the last slot is always occupied
+    private final int occupiedSlots;
+    private volatile Map<Integer, GUIElement> asMap = null; //Only created if asked for
+
+    /**
+     * Create a new InventoryLayout
+     * @param elementsBySlot The GUIElement in each slot, with null for empty slots. This is copied, so later changes to it
+     *                       won't affect the layout
+     */
+    public InventoryLayout(GUIElement[] elementsBySlot){
+        if(elementsBySlot == null){
+            throw new IllegalArgumentException("Elements must not be null");
+        }
+        int size = 0;
+        int occupied = 0;
+        for(int i=0;i<elementsBySlot.length;i++){
+            if(elementsBySlot[i] != null){
+                size = i+1;
+                occupied++;
+            }
+        }
+        this.elementsBySlot = new GUIElement[size];
+        System.arraycopy(elementsBySlot, 0, this.elementsBySlot, 0, size);
+        this.occupiedSlots = occupied;
+    }
+
+    /**
+     * Create a new InventoryLayout
+     * @param contentsBySlot The GUIElement in each slot. This is copied, so later changes to it won't affect the layout
+     */
+    public InventoryLayout(Map<Integer, GUIElement> contentsBySlot){
+        this(toArray(contentsBySlot));
+    }
+
+    private static GUIElement[] toArray(Map<Integer, GUIElement> contentsBySlot){
+        if(contentsBySlot == null){
+            throw new IllegalArgumentException("Contents must not be null");
+        }
+        int size = 0;
+        for(Integer slot:contentsBySlot.keySet()){
+            if(slot == null || slot < 0){
+                throw new IllegalArgumentException("Slots must be greater than or equal to 0");
+            }
+            if(slot >= size){
+                size = slot+1;
+            }
+        }
+        GUIElement[] elements = new GUIElement[size];
+        for(Map.Entry<Integer, GUIElement> entry:contentsBySlot.entrySet()){
+            elements[entry.getKey()] = entry.getValue();
+        }
+        return elements;
+    }
+
+    /**
+     * Retrieve the element positioned in a slot
+     * @param slot The slot to get the element in
+     * @return The element in this slot, or null if none
+     */
+    public GUIElement getElement(int slot){
+        if(slot < 0){
+            throw new IllegalArgumentException("Slot must be greater than or equal to 0");
+        }
+        return slot < elementsBySlot.length ? elementsBySlot[slot] : null;
+    }
+
+    /**
+     * Get the highest slot that has an element in it
+     * @return The highest occupied slot, or -1 if the layout is empty
+     */
+    public int getHighestOccupiedSlot(){
+        return elementsBySlot.length-1;
+    }
+
+    /**
+     * Get the amount of slots that have an element in them
+     * @return The amount of occupied slots
+     */
+    public int getOccupiedSlotCount(){
+        return occupiedSlots;
+    }
+
+    /**
+     * Check whether or not this layout has no elements in it
+     * @return True if there are no elements, False otherwise
+     */
+    public boolean isEmpty(){
+        return occupiedSlots == 0;
+    }
+
+    /**
+     * Get this layout as an unmodifiable map of slot to the element in that slot, ordered by slot
+     * @return The elements by slot
+     */
+    public Map<Integer, GUIElement> asMap(){
+        Map<Integer, GUIElement> map = asMap;
+        if(map == null){
+            Map<Integer, GUIElement> elements = new LinkedHashMap<Integer, GUIElement>();
+            for(int i=0;i<elementsBySlot.length;i++){
+                if(elementsBySlot[i] != null){
+                    elements.put(i, elementsBySlot[i]);
+                }
+            }
+            map = Collections.unmodifiableMap(elements);
+            asMap = map; //Fine if another thread also creates it, they're equal
+        }
+        return map;
+    }
+}
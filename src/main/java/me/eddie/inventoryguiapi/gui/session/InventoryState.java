@@ -4,15 +4,14 @@ import me.eddie.inventoryguiapi.gui.elements.GUIElement;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Represents the current state of an InventoryGUI page. It keeps track of the currently displayed GUIElements and their positions,
  * the inventory (Bukkit) being currently displayed and it's title and also if there are pages available after this page.
  */
 public class InventoryState extends AbstractAttributable {
-    private String title;
-    private Map<Integer, GUIElement> computedContentsBySlot = new HashMap<Integer, GUIElement>();
-    private boolean hasNextPage = false;
+    private final AtomicReference<PageSnapshot> snapshot = new AtomicReference<PageSnapshot>(PageSnapshot.EMPTY); //Layout, title and next page, immutable so replaced as one rather than modified
 
     /**
      * Construct a new InventoryState. This will intialize with a null inventory and title and with no next page or contents.
@@ -30,9 +29,50 @@ public class InventoryState extends AbstractAttributable {
         if(slot < 0){
             throw new IllegalArgumentException("Slot must be greater than or equal to 0");
         }
-        synchronized(computedContentsBySlot) {
-            return computedContentsBySlot.get(slot);
+        return snapshot.get().getLayout().getElement(slot);
+    }
+
+    /**
+     * Get a snapshot of everything currently calculated for this page. The snapshot is immutable, so it's layout, title
+     * and next page will always have been calculated together, even if this InventoryState is recalculated while it's used
+     * @return The current snapshot
+     */
+    public PageSnapshot getSnapshot(){
+        return snapshot.get();
+    }
+
+    /**
+     * Replace everything calculated for this page at once, so that readers never see part of an update
+     * @param snapshot The new snapshot
+     */
+    public void setSnapshot(PageSnapshot snapshot){
+        if(snapshot == null){
+            throw new IllegalArgumentException("Snapshot must not be null");
         }
+        this.snapshot.set(snapshot);
+    }
+
+    /**
+     * Get the currently computed layout of this InventoryState. The layout is immutable, so this is a snapshot that
+     * won't change if the contents of this InventoryState are recomputed
+     * @return The currently computed layout
+     */
+    public InventoryLayout getLayout(){
+        return snapshot.get().getLayout();
+    }
+
+    /**
+     * Set the currently computed layout of this InventoryState
+     * @param layout The layout
+     */
+    public void setLayout(InventoryLayout layout){
+        if(layout == null){
+            throw new IllegalArgumentException("Layout must not be null");
+        }
+        PageSnapshot current;
+        do {
+            current = snapshot.get();
+        } while(!snapshot.compareAndSet(current, current.withLayout(layout))); //Retry if replaced by another thread meanwhile
     }
 
     /**
@@ -40,16 +80,15 @@ public class InventoryState extends AbstractAttributable {
      * @return A copy of the currently computed contents of this InventoryState by slot
      */
     public Map<Integer, GUIElement> getComputedContentsBySlot(){
-        synchronized(computedContentsBySlot) { //Synchronized to prevent concurrent modification
-            return new HashMap<Integer, GUIElement>(computedContentsBySlot); //Return clone so that their copy isn't modified by ours and vice versa
-        }
+        return new HashMap<Integer, GUIElement>(getLayout().asMap()); //Return clone so that their copy can be modified, use getLayout() to avoid copying
     }
 
+    /**
+     * Set the currently computed contents of this InventoryState by slot
+     * @param computedContentsBySlot The computed contents by slot. This is copied, so later changes to it won't affect this InventoryState
+     */
     public void setComputedContentsBySlot(Map<Integer, GUIElement> computedContentsBySlot){
-        synchronized(computedContentsBySlot) { //Synchronized to prevent concurrent modification
-            this.computedContentsBySlot.clear();
-            this.computedContentsBySlot.putAll(computedContentsBySlot);
-        }
+        setLayout(new InventoryLayout(computedContentsBySlot));
     }
 
     /**
@@ -57,7 +96,7 @@ public class InventoryState extends AbstractAttributable {
      * @return The title
      */
     public String getTitle() {
-        return title;
+        return snapshot.get().getTitle();
     }
 
     /**
@@ -65,7 +104,10 @@ public class InventoryState extends AbstractAttributable {
      * @param title The title
      */
     public void setTitle(String title) {
-        this.title = title;
+        PageSnapshot current;
+        do {
+            current = snapshot.get();
+        } while(!snapshot.compareAndSet(current, current.withTitle(title)));
     }
 
     /**
@@ -73,7 +115,7 @@ public class InventoryState extends AbstractAttributable {
      * @return True if another page exists after this one, or False if not
      */
     public boolean hasNextPage() {
-        return hasNextPage;
+        return snapshot.get().hasNextPage();
     }
 
     /**
@@ -81,6 +123,9 @@ public class InventoryState extends AbstractAttributable {
      * @param hasNextPage True if another page exists after this one, or False if not
      */
     public void setHasNextPage(boolean hasNextPage) {
-        this.hasNextPage = hasNextPage;
+        PageSnapshot current;
+        do {
+            current = snapshot.get();
+        } while(!snapshot.compareAndSet(current, current.withHasNextPage(hasNextPage)));
     }
 }
@@ -0,0 +1,123 @@
+package me.eddie.inventoryguiapi.gui.session;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of everything calculated for a page of an InventoryGUI: it's layout, title and whether or not
+ * another page exists after it. InventoryStates publish a new snapshot whenever their page is recalculated, so a reader
+ * holding a snapshot always sees a layout and title that were calculated together, on any thread and without locking.
+ */
+public final class PageSnapshot {
+    /**
+     * A snapshot of a page that hasn't been calculated yet
+     */
+    public static final PageSnapshot EMPTY = new PageSnapshot(InventoryLayout.EMPTY, null, false);
+
+    private final InventoryLayout layout;
+    private final String title;
+    private final Map<Locale, String> titlesByLocale; //Titles for viewers using other languages, by the locale of their messages
+    private final boolean hasNextPage;
+
+    /**
+     * Create a new PageSnapshot
+     * @param layout The layout of the page
+     * @param title The title of the page, or null if it hasn't been calculated
+     * @param hasNextPage True if another page exists after this one, False otherwise
+     */
+    public PageSnapshot(InventoryLayout layout, String title, boolean hasNextPage){
+        this(layout, title, Collections.<Locale, String>emptyMap(), hasNextPage);
+    }
+
+    /**
+     * Create a new PageSnapshot of a page whose title was calculated in more than one language
+     * @param layout The layout of the page
+     * @param title The title of the page shown to viewers using a language it wasn't calculated in, or null if it hasn't been calculated
+     * @param titlesByLocale The titles of the page by the locale of the messages of the viewers they're for (See {@link me.eddie.inventoryguiapi.plugin.InventoryGUIAPI#getMessageLocale(org.bukkit.entity.Player)})
+     * @param hasNextPage True if another page exists after this one, False otherwise
+     */
+    public PageSnapshot(InventoryLayout layout, String title, Map<Locale, String> titlesByLocale, boolean hasNextPage){
+        if(layout == null){
+            throw new IllegalArgumentException("Layout must not be null");
+        }
+        if(titlesByLocale == null){
+            throw new IllegalArgumentException("Titles by locale must not be null");
+        }
+        this.layout = layout;
+        this.title = title;
+        this.titlesByLocale = titlesByLocale.isEmpty() ? Collections.<Locale, String>emptyMap()
+                : Collections.unmodifiableMap(new HashMap<Locale, String>(titlesByLocale)); //HashMap as the locale may be null
+        this.hasNextPage = hasNextPage;
+    }
+
+    /**
+     * Get the layout of the page
+     * @return The layout
+     */
+    public InventoryLayout getLayout(){
+        return layout;
+    }
+
+    /**
+     * Get the title of the page
+     * @return The title, or null if it hasn't been calculated
+     */
+    public String getTitle(){
+        return title;
+    }
+
+    /**
+     * Get the title of the page in a language
+     * @param locale The locale of the messages of the viewer it's for (See {@link me.eddie.inventoryguiapi.plugin.InventoryGUIAPI#getMessageLocale(org.bukkit.entity.Player)})
+     * @return The title calculated for the locale, or if it wasn't calculated for it then {@link #getTitle()}
+     */
+    public String getTitle(Locale locale){
+        String localized = titlesByLocale.get(locale);
+        return localized != null ? localized : title;
+    }
+
+    /**
+     * Get the titles of the page by the locale they were calculated for
+     * @return An unmodifiable map of the titles by locale, empty if the title wasn't calculated for any particular language
+     */
+    public Map<Locale, String> getTitlesByLocale(){
+        return titlesByLocale;
+    }
+
+    /**
+     * Whether or not another page exists after this one
+     * @return True if another page exists after this one, or False if not
+     */
+    public boolean hasNextPage(){
+        return hasNextPage;
+    }
+
+    /**
+     * Get a copy of this snapshot with a different layout
+     * @param layout The layout
+     * @return The new snapshot
+     */
+    public PageSnapshot withLayout(InventoryLayout layout){
+        return new PageSnapshot(layout, title, titlesByLocale, hasNextPage);
+    }
+
+    /**
+     * Get a copy of this snapshot with a different title, shown to viewers using any language
+     * @param title The title
+     * @return The new snapshot
+     */
+    public PageSnapshot withTitle(String title){
+        return new PageSnapshot(layout, title, hasNextPage);
+    }
+
+    /**
+     * Get a copy of this snapshot with a different value for whether or not another page exists after this one
+     * @param hasNextPage True if another page exists after this one, or False if not
+     * @return The new snapshot
+     */
+    public PageSnapshot withHasNextPage(boolean hasNextPage){
+        return new PageSnapshot(layout, title, titlesByLocale, hasNextPage);
+    }
+}
@@ -0,0 +1,53 @@
+package me.eddie.inventoryguiapi.gui.session;
+
+/**
+ * Identifies a single request to calculate the contents of a GUISession. A request is cancelled once it is superseded
+ * by a newer request for the same session, or the session is closed. Results for a cancelled request are dropped, so
+ * contents providers that do slow or asynchronous work can check {@link #isCancelled()} to stop early.
+ */
+public class RequestToken {
+    private final long generation;
+    private final int page;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Create a new RequestToken
+     * @param generation The generation of the request, higher for newer requests of the same session
+     * @param page The page the request is for
+     */
+    public RequestToken(long generation, int page){
+        this.generation = generation;
+        this.page = page;
+    }
+
+    /**
+     * Get the generation of this request. Newer requests for the same session have a higher generation
+     * @return The generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Get the page this request is for
+     * @return The page
+     */
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * Whether or not the result of this request is no longer wanted
+     * @return True if cancelled, False otherwise
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Mark this request as no longer wanted, so that it's result will be dropped
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+}
@@ -0,0 +1,16 @@
+package me.eddie.inventoryguiapi.gui.session;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.InventoryHolder;
+
+/**
+ * Holder of an inventory that several players view at once, each with their own GUISession
+ */
+public interface SharedInventoryHolder extends InventoryHolder {
+    /**
+     * Get the GUISession a viewer of the inventory views it with
+     * @param viewer The viewer of the inventory
+     * @return The viewer's GUISession, or null if they aren't known to be viewing it
+     */
+    public GUISession getViewerSession(Player viewer);
+}
@@ -0,0 +1,38 @@
+package me.eddie.inventoryguiapi.gui.session;
+
+/**
+ * An Attributable that also supports attributes with typed keys (See {@link AttributeKey}), which are faster to look up
+ * than Object keys. Kept separate from Attributable so that existing implementations of it don't need changing.
+ */
+public interface TypedAttributable extends Attributable {
+    /**
+     * Get the value of a typed attribute
+     * @param key The key of the attribute
+     * @param <T> The type of the attribute
+     * @return The value of the attribute, or null if no value can be found for the given key
+     */
+    public <T> T getAttribute(AttributeKey<T> key);
+
+    /**
+     * Check if a given typed attribute exists
+     * @param key The key of the attribute
+     * @return True if the attribute exists, or False if not
+     */
+    public boolean hasAttribute(AttributeKey<?> key);
+
+    /**
+     * Set the value of a typed attribute
+     * @param key The key of the attribute
+     * @param value The value of the attribute
+     * @param <T> The type of the attribute
+     */
+    public <T> void putAttribute(AttributeKey<T> key, T value);
+
+    /**
+     * Remove a typed attribute
+     * @param key The key to remove the attribute for
+     * @param <T> The type of the attribute
+     * @return The previous value for this attribute (before removal) or null
+     */
+    public <T> T removeAttribute(AttributeKey<T> key);
+}
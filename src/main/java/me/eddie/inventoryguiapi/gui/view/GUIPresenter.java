@@ -1,21 +1,26 @@
 package me.eddie.inventoryguiapi.gui.view;
 
+import me.eddie.inventoryguiapi.gui.elements.ActionItem;
 import me.eddie.inventoryguiapi.gui.elements.GUIElement;
 import me.eddie.inventoryguiapi.gui.guis.InventoryGUI;
 import me.eddie.inventoryguiapi.gui.guis.SharedInventoryGUI;
+import me.eddie.inventoryguiapi.gui.guis.SharedPageSession;
 import me.eddie.inventoryguiapi.gui.session.GUISession;
 import me.eddie.inventoryguiapi.gui.session.GUIState;
+import me.eddie.inventoryguiapi.gui.session.InventoryLayout;
 import me.eddie.inventoryguiapi.gui.session.InventoryState;
-import me.eddie.inventoryguiapi.listeners.BukkitEventListener;
+import me.eddie.inventoryguiapi.gui.session.PageSnapshot;
+import me.eddie.inventoryguiapi.listeners.EventSuppression;
 import me.eddie.inventoryguiapi.plugin.InventoryGUIAPI;
+import me.eddie.inventoryguiapi.util.ItemFingerprint;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.InventoryView;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.metadata.FixedMetadataValue;
 
 import java.util.Map;
 
@@ -25,6 +30,87 @@ import java.util.Map;
  * and make your GUI use your extended version of GUIPresenter.
  */
 public class GUIPresenter {
+    private static final int LOCK_STRIPES = 64; //Must be a power of 2
+
+    private final boolean diffRendering;
+    private final boolean trackInsertCandidates;
+    private final Object[] locks = new Object[LOCK_STRIPES]; //Views of different sessions can be updated concurrently, views of the same session can't
+
+    /**
+     * Create a new GUIPresenter that re-renders every slot of the inventory on every update
+     */
+    public GUIPresenter(){
+        this(false);
+    }
+
+    /**
+     * Create a new GUIPresenter
+     * @param diffRendering True if only slots whose display has changed since the last render should be updated (And
+     *                      the viewer's inventory should only be re-sent when something changed), False if every slot should be re-rendered on every update
+     */
+    public GUIPresenter(boolean diffRendering){
+        this(diffRendering, false);
+    }
+
+    /**
+     * Create a new GUIPresenter
+     * @param diffRendering True if only slots whose display has changed since the last render should be updated (And
+     *                      the viewer's inventory should only be re-sent when something changed), False if every slot should be re-rendered on every update
+     * @param trackInsertCandidates True if what's rendered into each slot should be recorded even when not diff rendering,
+     *                              so that items shift clicked into the GUI only have to be checked against the slots
+     *                              they could go in (See {@link RenderedContents}). Worth enabling for large GUIs that
+     *                              items are shift clicked into, eg. ones with many InputSlots
+     */
+    public GUIPresenter(boolean diffRendering, boolean trackInsertCandidates){
+        this.diffRendering = diffRendering;
+        this.trackInsertCandidates = trackInsertCandidates;
+        for(int i=0;i<locks.length;i++){
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Whether or not this presenter only updates the slots whose display has changed since the last render
+     * @return True if diff rendering is enabled, False otherwise
+     */
+    public boolean isDiffRendering(){
+        return diffRendering;
+    }
+
+    /**
+     * Whether or not this presenter records what it renders into each slot even when not diff rendering, so that it
+     * can be used to find the slots items shift clicked into the GUI could go in
+     * @return True if insert candidates are tracked, False otherwise
+     */
+    public boolean isTrackingInsertCandidates(){
+        return trackInsertCandidates;
+    }
+
+    //Whether or not what's rendered into inventories needs to be recorded. If not, nothing is recorded as copying every display item on every render isn't free
+    private boolean isRecordingRendered(){
+        return diffRendering || trackInsertCandidates;
+    }
+
+    //Get what was last rendered into an inventory being filled, or null if it isn't being recorded
+    private RenderedContents getRendered(Inventory inventory, boolean created){
+        if(!isRecordingRendered()){
+            return null;
+        }
+        return created ? RenderedContents.createForEmpty(inventory) : RenderedContents.getOrCreate(inventory); //New inventories are empty
+    }
+
+    /**
+     * Get the lock that must be held while updating the inventory held by the given holder. Locks are striped, so
+     * updates for different sessions usually don't wait for each other.
+     * @param holder The holder of the inventory, eg. a GUISession
+     * @return The lock for the holder
+     */
+    protected Object getLock(InventoryHolder holder){
+        int hash = holder.hashCode();
+        hash ^= (hash >>> 16); //Spread the higher bits, since only the lower ones pick the stripe
+        return locks[hash & (locks.length-1)];
+    }
+
     /**
      * Will update the viewer's view of the given GUISession. This will not recalculate what should be displayed though,
      * instead use {@link me.eddie.inventoryguiapi.gui.guis.InventoryGUI#updateContentsAndView(Player)} if this is what you require.
@@ -33,70 +119,215 @@ public class GUIPresenter {
      * @param viewer The viewer of the GUI. Or if it's a GUI with multiple viewers, any viewer of the GUI.
      * @param session The GUISession that determines what should be displayed
      */
-    public synchronized void updateView(final Player viewer, GUISession session){ //Synchronized so doesn't happen concurrently
+    public void updateView(final Player viewer, GUISession session){
         if(viewer == null || session == null){
             throw new IllegalArgumentException();
         }
+        if(recalculateIfEvicted(viewer, session.getInventoryGUI(), session.getGUIState(), session.getPage())){
+            return; //Shown once it's been calculated again
+        }
+
+        synchronized (getLock(session)){ //So the same session's view isn't updated concurrently
+            updateViewLocked(viewer, session);
+        }
+    }
+
+    //Update the viewer's view of the given GUISession, whilst holding the session's lock
+    private void updateViewLocked(final Player viewer, GUISession session){
+        PageSnapshot page = getStateToDisplay(session).getSnapshot(); //So the size, title and contents all come from the same calculation
+        InventoryGUI gui = session.getInventoryGUI();
+        int requiredSize = getRequiredSize(gui, page);
+        String title = page.getTitle(InventoryGUIAPI.getMessageLocale(viewer)); //In the viewer's language
+
+        Inventory inventory = viewer.getOpenInventory() == null ? null : viewer.getOpenInventory().getTopInventory(); //Get inventory currently being viewed
+        if(inventory != null &&
+                (GUISession.extractSession(inventory) == null || !GUISession.extractSession(inventory).equals(session)
+                        || inventory.getSize() != requiredSize
+                        || !inventory.getTitle().equals(title))){ //If the existing inventory is unusable
+            inventory = null;
+        }
+
+        boolean created = inventory == null;
+        if(created){ //Creating a new inventory, instead of re-using one
+            inventory = createInventory(session, gui, requiredSize, title);
+        }
+
+        RenderedContents rendered = getRendered(inventory, created); //What was last rendered into the inventory
+        int changedSlots = fillInventory(inventory, page, viewer, session, rendered);
+        showInventory(viewer, gui, inventory, !diffRendering || changedSlots > 0); //When diff rendering, only re-send the inventory if something changed
+    }
+
+    /**
+     * Will update the view of every viewer of a page of a shared GUI, with all of them viewing the same Bukkit inventory.
+     * The inventory is kept by the SharedPageSession and is filled once per update, Bukkit then shows the changes to
+     * every player viewing it. Viewers not yet viewing the page's inventory will be shown it.
+     * @param pageSession The SharedPageSession that holds the page's inventory. It's page determines what should be displayed, and it's locale the language it's displayed in
+     * @param viewers The viewers of the page whose messages are in the page session's locale, and the sessions they are each viewing the GUI with
+     */
+    public void updateSharedView(SharedPageSession pageSession, Map<Player, GUISession> viewers){
+        if(pageSession == null || viewers == null){
+            throw new IllegalArgumentException();
+        }
+        if(viewers.isEmpty()){
+            return;
+        }
 
+        if(recalculateIfEvicted(viewers.keySet().iterator().next(), pageSession.getInventoryGUI(), pageSession.getGUIState(), pageSession.getPage())){
+            return; //Shown to every viewer once it's been calculated again
+        }
+        InventoryState inventoryState = pageSession.getGUIState().getExistingInventoryState(pageSession.getPage());
+        if(inventoryState == null){ //Nothing for this page to share, so fall back to showing each viewer what they can see
+            for(Map.Entry<Player, GUISession> viewer:viewers.entrySet()){
+                updateView(viewer.getKey(), viewer.getValue());
+            }
+            return;
+        }
+
+        synchronized (getLock(pageSession)){ //So the page's inventory isn't updated concurrently
+            updateSharedViewLocked(pageSession, inventoryState, viewers);
+        }
+    }
+
+    //Update the view of every viewer of a page's shared inventory, whilst holding the page session's lock
+    private void updateSharedViewLocked(SharedPageSession pageSession, InventoryState inventoryState, Map<Player, GUISession> viewers){
+        InventoryGUI gui = pageSession.getInventoryGUI();
+        PageSnapshot page = inventoryState.getSnapshot();
+        int requiredSize = getRequiredSize(gui, page);
+        String title = page.getTitle(pageSession.getLocale());
+
+        Inventory inventory = pageSession.getInventory();
+        if(inventory != null && (inventory.getSize() != requiredSize || !inventory.getTitle().equals(title))){ //If the existing inventory is unusable
+            inventory = null;
+        }
+
+        boolean created = inventory == null;
+        if(created){ //Creating a new inventory, instead of re-using one
+            inventory = createInventory(pageSession, gui, requiredSize, title);
+            pageSession.setInventory(inventory);
+        }
+
+        RenderedContents rendered = getRendered(inventory, created); //What was last rendered into the inventory
+
+        Map.Entry<Player, GUISession> anyViewer = viewers.entrySet().iterator().next(); //They all use the page session's language, so are shown the same display items
+        int changedSlots = fillInventory(inventory, page, anyViewer.getKey(), anyViewer.getValue(), rendered);
+        for(Player viewer:viewers.keySet()){
+            showInventory(viewer, gui, inventory, changedSlots > 0);
+        }
+    }
+
+    //If the page was removed by the page retention limit, calculate it again rather than showing a different page
+    private boolean recalculateIfEvicted(Player viewer, InventoryGUI gui, GUIState guiState, int page){
+        if(!guiState.wasEvicted(page) || guiState.hasInventoryState(page)){
+            return false;
+        }
+        gui.updateContentsAndView(viewer); //Updates the view again once calculated
+        return true;
+    }
+
+    /**
+     * Get the InventoryState that should be displayed for the given session
+     * @param session The GUISession being displayed
+     * @return The InventoryState of the session's page, or if that doesn't exist the nearest page before it that does
+     */
+    protected InventoryState getStateToDisplay(GUISession session){
         GUIState guiState = session.getGUIState();
         int page = session.getPage();
 
         InventoryState inventoryState = guiState.getExistingInventoryState(page); //Get the state to display
         while(inventoryState == null){ //Attempt to find a page that does exist nearby, since the state to display isn't there.
             page--;
-            if(page < 0){
+            if(page < 1){
                 throw new RuntimeException("Attempted to update the view of a GUI that doesn't have any state!"); //Output what went wrong
             }
             inventoryState = guiState.getExistingInventoryState(page);
         }
+        return inventoryState;
+    }
 
-        InventoryGUI gui = session.getInventoryGUI();
-        InventoryType inventoryType = gui.getInventoryType();
+    /**
+     * Calculate the size of inventory needed to display a page
+     * @param gui The GUI being displayed
+     * @param page The snapshot of the page being displayed
+     * @return The size the inventory displaying it should be
+     */
+    protected int getRequiredSize(InventoryGUI gui, PageSnapshot page){
         int invMaxSize = gui.getMaximumGUISize();
         boolean isSizeDynamic = gui.isGUISizeDynamic();
-        Map<Integer, GUIElement> guiElements = inventoryState.getComputedContentsBySlot();
 
         //Calculate the needed size of this GUI
-        int requiredSize = 0;
-        for(Map.Entry<Integer, GUIElement> entry:guiElements.entrySet()){
-            if(entry.getKey() >= requiredSize){ //If slot bigger than or equal to requiredSize
-                requiredSize = entry.getKey()+1; //Make the requiredSize the slot + 1
-            }
-        }
+        int requiredSize = page.getLayout().getHighestOccupiedSlot()+1;
         if(requiredSize > invMaxSize || !isSizeDynamic){ //If we should be using the max size for this inventory
             requiredSize = invMaxSize;
         }
         else {
             requiredSize = requiredSize == 0 ? 9 : (int) (9*Math.ceil(requiredSize / 9.0d)); //Only chests support dynamic resizing, and they require inventories of a size that is a multiple of 9 (and larger than 0)
         }
+        return requiredSize;
+    }
 
-        Inventory inventory = viewer.getOpenInventory() == null ? null : viewer.getOpenInventory().getTopInventory(); //Get inventory currently being viewed
-        if(inventory != null &&
-                (GUISession.extractSession(inventory) == null || !GUISession.extractSession(inventory).equals(session)
-                        || inventory.getSize() != requiredSize
-                        || !inventory.getTitle().equals(inventoryState.getTitle()))){ //If the existing inventory is unusable
-            inventory = null;
-        }
-
-        if(inventory == null){ //Creating a new inventory, instead of re-using one
-            inventory = inventoryType.equals(InventoryType.CHEST) ?
-                    Bukkit.createInventory(session, requiredSize, inventoryState.getTitle())
-                    : Bukkit.createInventory(session, inventoryType, inventoryState.getTitle()); //Create the inventory
-        }
+    /**
+     * Create a new Bukkit inventory to display a GUI in
+     * @param holder The GUISession or SharedPageSession that will hold the inventory
+     * @param gui The GUI being displayed
+     * @param size The size of the inventory, ignored for inventory types other than chests
+     * @param title The title of the inventory
+     * @return The created inventory
+     */
+    protected Inventory createInventory(InventoryHolder holder, InventoryGUI gui, int size, String title){
+        InventoryType inventoryType = gui.getInventoryType();
+        return inventoryType.equals(InventoryType.CHEST) ?
+                Bukkit.createInventory(holder, size, title)
+                : Bukkit.createInventory(holder, inventoryType, title); //Create the inventory
+    }
 
-        //Fill the inventory with the correct items
+    /**
+     * Fill an inventory with the display items of a page
+     * @param inventory The inventory to fill
+     * @param page The snapshot of the page to display
+     * @param viewer The viewer the display items are for
+     * @param session The GUISession the display items are for
+     * @param rendered What was last rendered into the inventory, which is kept up to date and, when diff rendering, used to
+     *                 only update slots that have changed. Or null to not keep track and update every slot
+     * @return The amount of slots that were updated
+     */
+    protected int fillInventory(Inventory inventory, PageSnapshot page, Player viewer, GUISession session, RenderedContents rendered){
+        InventoryLayout layout = page.getLayout();
+        int changedSlots = 0;
         for(int i=0;i<inventory.getSize();i++){
-            GUIElement elem = inventoryState.getElementInSlot(i);
+            GUIElement elem = layout.getElement(i);
             ItemStack display = elem == null ? null : elem.getDisplay(viewer, session);
             if(display == null || display.getType().equals(Material.AIR)){
                 display = null;
             }
+            if(rendered != null){
+                if(diffRendering){
+                    ItemFingerprint fingerprint = elem instanceof ActionItem && display == ((ActionItem) elem).getDisplayItem()
+                            ? ((ActionItem) elem).getDisplayFingerprint() : null; //Only ActionItems cache their display item's fingerprint
+                    if(!rendered.hasChanged(i, display, fingerprint)){
+                        continue; //Slot is already showing this item
+                    }
+                }
+                rendered.setRendered(i, display);
+            }
             inventory.setItem(i, display); //Place into the inventory the given item
+            changedSlots++;
         }
+        return changedSlots;
+    }
 
+    /**
+     * Make sure the viewer is looking at the given inventory, opening it for them if they aren't
+     * @param viewer The viewer
+     * @param gui The GUI the inventory is displaying
+     * @param inventory The inventory to show
+     * @param resend If the viewer is already looking at the inventory, whether or not to re-send it to them
+     */
+    protected void showInventory(final Player viewer, InventoryGUI gui, Inventory inventory, boolean resend){
         InventoryView openInv = viewer.getOpenInventory();
         if(openInv != null && openInv.getTopInventory() != null && openInv.getTopInventory().equals(inventory)){
-            viewer.updateInventory(); //Update what the player sees
+            if(resend){
+                viewer.updateInventory(); //Update what the player sees
+            }
         }
         else {
             //Close currently open inventory, specifying to ignore the event if for the same GUI, and then open the correct GUI
@@ -110,13 +341,17 @@ public class GUIPresenter {
                 return;
             }
 
-            GUISession otherInvSession = GUISession.extractSession(open); //Get any GUISessions for the inventory we are going to have to close
+            GUISession otherInvSession = GUISession.extractSession(open, viewer); //Get any GUISessions for the inventory we are going to have to close
             boolean ignoreCloseEvent = otherInvSession != null && otherInvSession.getInventoryGUI().equals(gui); //If it's the same GUI as this one, don't want to fire the GUICloseEvent
             if(ignoreCloseEvent){
-                //Use metadta to tell event listener to ignore inventory close events for this player
-                viewer.setMetadata(BukkitEventListener.IGNORE_CLOSE_EVENT_META, new FixedMetadataValue(InventoryGUIAPI.getInstance(), "some non null value"));
-                viewer.closeInventory();
-                viewer.removeMetadata(BukkitEventListener.IGNORE_CLOSE_EVENT_META, InventoryGUIAPI.getInstance());
+                //Tell event listener to ignore inventory close events for this player
+                EventSuppression.Suppression suppression = EventSuppression.suppress(viewer, EventSuppression.Kind.CLOSE);
+                try {
+                    viewer.closeInventory();
+                }
+                finally {
+                    suppression.release();
+                }
             }
             else {
                 viewer.closeInventory();
@@ -0,0 +1,271 @@
+package me.eddie.inventoryguiapi.gui.view;
+
+import me.eddie.inventoryguiapi.util.ItemFingerprint;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps track of what a GUIPresenter last rendered into each slot of a Bukkit inventory. This allows a presenter
+ * to only update the slots whose display has actually changed since the last render.
+ * Anything that changes the contents of a GUI's inventory without going through a GUIPresenter should call
+ * {@link #update(Inventory, int, ItemStack)} or {@link #invalidate(Inventory, int)} for the slots it changes, so that
+ * they are re-rendered next time.
+ * As what's in each slot is known, it's also used as an index of the empty slots and the slots holding stacks that
+ * aren't full, so that slots to insert items into can be found without checking every slot. GUIPresenters only keep this
+ * up to date for the inventories they fill if they're diff rendering or tracking insert candidates (See
+ * {@link GUIPresenter#GUIPresenter(boolean, boolean)}), otherwise nothing is known about their inventories and every slot is checked.
+ */
+public class RenderedContents {
+    private static final Map<Inventory, RenderedContents> renderedByInventory = new WeakHashMap<Inventory, RenderedContents>(); //Weak so that closed inventories don't stay in memory
+
+    /**
+     * Get what was last rendered into the given inventory, or null if nothing is known about it
+     * @param inventory The inventory
+     * @return The RenderedContents of the inventory, or null if none exists
+     */
+    public static RenderedContents get(Inventory inventory){
+        if(inventory == null){
+            return null;
+        }
+        synchronized (renderedByInventory){
+            return renderedByInventory.get(inventory);
+        }
+    }
+
+    /**
+     * Get what was last rendered into the given inventory, creating a record where nothing is yet known about any slot
+     * if none exists
+     * @param inventory The inventory
+     * @return The RenderedContents of the inventory
+     */
+    public static RenderedContents getOrCreate(Inventory inventory){
+        if(inventory == null){
+            throw new IllegalArgumentException("Inventory must not be null");
+        }
+        synchronized (renderedByInventory){
+            RenderedContents contents = renderedByInventory.get(inventory);
+            if(contents == null || contents.getSize() != inventory.getSize()){
+                contents = new RenderedContents(inventory.getSize(), false);
+                renderedByInventory.put(inventory, contents);
+            }
+            return contents;
+        }
+    }
+
+    /**
+     * Start tracking a newly created (And therefore empty) inventory
+     * @param inventory The newly created inventory
+     * @return The RenderedContents of the inventory, with every slot known to be empty
+     */
+    public static RenderedContents createForEmpty(Inventory inventory){
+        if(inventory == null){
+            throw new IllegalArgumentException("Inventory must not be null");
+        }
+        RenderedContents contents = new RenderedContents(inventory.getSize(), true);
+        synchronized (renderedByInventory){
+            renderedByInventory.put(inventory, contents);
+        }
+        return contents;
+    }
+
+    /**
+     * Mark a slot of the given inventory as having been changed by something other than a GUIPresenter, so that it will
+     * be re-rendered next time.
+     * @param inventory The inventory that was changed
+     * @param slot The slot (Of the inventory, not the raw slot of an InventoryView) that was changed
+     */
+    public static void invalidate(Inventory inventory, int slot){
+        RenderedContents contents = get(inventory);
+        if(contents != null){
+            contents.invalidate(slot);
+        }
+    }
+
+    /**
+     * Record that a slot of the given inventory has been set to an item by something other than a GUIPresenter. The slot
+     * will be re-rendered next time if the item isn't what the GUIPresenter would display there.
+     * @param inventory The inventory that was changed
+     * @param slot The slot (Of the inventory, not the raw slot of an InventoryView) that was changed
+     * @param item The item now in the slot, null for an empty slot
+     */
+    public static void update(Inventory inventory, int slot, ItemStack item){
+        RenderedContents contents = get(inventory);
+        if(contents != null){
+            contents.setRendered(slot, item == null || item.getType().equals(Material.AIR) ? null : item);
+        }
+    }
+
+    private final ItemStack[] rendered; //Copies of what was rendered into each slot
+    private final ItemFingerprint[] fingerprints; //Fingerprints of the copies in rendered, computed when first needed
+    private final BitSet known; //Slots that what's in them is known
+    private final BitSet emptySlots; //Slots known to be empty
+    private final Map<Material, BitSet> partialSlotsByType = new EnumMap<Material, BitSet>(Material.class); //Slots known to contain a stack that isn't full, by the type of item
+
+    private RenderedContents(int size, boolean knownEmpty){
+        this.rendered = new ItemStack[size];
+        this.fingerprints = new ItemFingerprint[size];
+        this.known = new BitSet(size);
+        this.emptySlots = new BitSet(size);
+        if(knownEmpty){
+            known.set(0, size);
+            emptySlots.set(0, size);
+        }
+    }
+
+    /**
+     * Get the amount of slots being tracked
+     * @return The amount of slots
+     */
+    public int getSize(){
+        return rendered.length;
+    }
+
+    /**
+     * Check if the given display item differs from what was last rendered into the slot
+     * @param slot The slot
+     * @param display The item to display, null for an empty slot
+     * @return True if the slot needs to be updated to show the item, False if it is already showing it
+     */
+    public synchronized boolean hasChanged(int slot, ItemStack display){
+        return hasChanged(slot, display, null);
+    }
+
+    /**
+     * Check if the given display item differs from what was last rendered into the slot, using the item's fingerprint to
+     * rule out a match without comparing item meta where possible. Fingerprints that match are always confirmed by
+     * comparing the items.
+     * @param slot The slot
+     * @param display The item to display, null for an empty slot
+     * @param fingerprint The cached fingerprint of the display item, or null if it doesn't have one
+     * @return True if the slot needs to be updated to show the item, False if it is already showing it
+     */
+    public synchronized boolean hasChanged(int slot, ItemStack display, ItemFingerprint fingerprint){
+        if(slot < 0 || slot >= rendered.length || !known.get(slot)){
+            return true;
+        }
+        ItemStack last = rendered[slot];
+        if(display == null || last == null){
+            return display != last;
+        }
+        if(fingerprint != null && !fingerprint.mightStackWith(fingerprintOf(slot))){
+            return true; //Definitely a different item, no need to compare meta
+        }
+        return !display.equals(last);
+    }
+
+    /**
+     * Get the fingerprint of what's in a slot, if it's known and looks like the item actually in the slot (Same type,
+     * durability and amount). The fingerprint is computed the first time it's needed and kept until the slot changes.
+     * @param slot The slot
+     * @param actual The item actually in the slot
+     * @return The fingerprint of the item in the slot, or null if it isn't known
+     */
+    public synchronized ItemFingerprint getFingerprint(int slot, ItemStack actual){
+        if(slot < 0 || slot >= rendered.length || !known.get(slot)){
+            return null;
+        }
+        ItemStack last = rendered[slot];
+        if(last == null || actual == null || last.getType() != actual.getType()
+                || last.getDurability() != actual.getDurability() || last.getAmount() != actual.getAmount()){
+            return null; //Not what we think is there, so something changed it without telling us
+        }
+        return fingerprintOf(slot);
+    }
+
+    //Get the fingerprint of the copy of what was rendered into a slot, which must not be empty
+    private ItemFingerprint fingerprintOf(int slot){
+        ItemFingerprint fingerprint = fingerprints[slot];
+        if(fingerprint == null){
+            fingerprint = ItemFingerprint.of(rendered[slot]); //Our copy is never modified, so this stays correct
+            fingerprints[slot] = fingerprint;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Record that the given display item has been rendered into the slot
+     * @param slot The slot
+     * @param display The item that was rendered, null for an empty slot
+     */
+    public synchronized void setRendered(int slot, ItemStack display){
+        if(slot < 0 || slot >= rendered.length){
+            return;
+        }
+        unindex(slot);
+        rendered[slot] = display == null ? null : display.clone(); //Clone so that later modifications to the display item are noticed
+        fingerprints[slot] = null;
+        known.set(slot);
+        if(display == null){
+            emptySlots.set(slot);
+        }
+        else if(display.getAmount() < display.getMaxStackSize()){
+            BitSet partial = partialSlotsByType.get(display.getType());
+            if(partial == null){
+                partial = new BitSet(rendered.length);
+                partialSlotsByType.put(display.getType(), partial);
+            }
+            partial.set(slot);
+        }
+    }
+
+    /**
+     * Forget what was rendered into a slot, so that it will be re-rendered next time
+     * @param slot The slot
+     */
+    public synchronized void invalidate(int slot){
+        if(slot < 0 || slot >= rendered.length){
+            return;
+        }
+        unindex(slot);
+        rendered[slot] = null;
+        fingerprints[slot] = null;
+        known.clear(slot);
+    }
+
+    //Remove a slot from the indexes of empty and partially filled slots
+    private void unindex(int slot){
+        emptySlots.clear(slot);
+        ItemStack last = rendered[slot];
+        if(last != null){
+            BitSet partial = partialSlotsByType.get(last.getType());
+            if(partial != null){
+                partial.clear(slot);
+            }
+        }
+    }
+
+    /**
+     * Get the next slot that an item of the given type might be able to be inserted into: One known to be empty, one
+     * known to contain a stack of the type that isn't full, or one whose contents aren't known. Callers must still
+     * check the slot, as items of the same type don't always stack.
+     * @param type The type of item being inserted
+     * @param from The slot to start looking from (Inclusive)
+     * @return The next candidate slot, or -1 if there are none left
+     */
+    public synchronized int nextInsertCandidate(Material type, int from){
+        if(from < 0 || from >= rendered.length){
+            return -1;
+        }
+        int next = known.nextClearBit(from); //Unknown slots
+        next = earliest(next < rendered.length ? next : -1, emptySlots.nextSetBit(from));
+        BitSet partial = type == null ? null : partialSlotsByType.get(type);
+        if(partial != null){
+            next = earliest(next, partial.nextSetBit(from));
+        }
+        return next;
+    }
+
+    //Get the earliest of two slots, where -1 is no slot
+    private static int earliest(int a, int b){
+        if(a < 0){
+            return b;
+        }
+        return b < 0 ? a : Math.min(a, b);
+    }
+}
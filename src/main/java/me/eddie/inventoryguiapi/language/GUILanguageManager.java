@@ -1,8 +1,11 @@
 package me.eddie.inventoryguiapi.language;
 
-import java.util.Formatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.PropertyResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by Edward on 28/12/2016.
@@ -11,6 +14,14 @@ public class GUILanguageManager { //Manages all the messages that the plugin use
     public static final String BUNDLE_NAME = "messages"; //The name of the bundle (.properties file) used for languages.
     private Locale preferredLocale;
     private PropertyResourceBundle resources; //The resources loaded, eg. all the messages the plugin will use
+    private static final int MAX_CACHED_TITLES = 256;
+    private final Map<String, MessageTemplate> templates = new ConcurrentHashMap<String, MessageTemplate>(); //Compiled format strings by key, so they're only parsed once
+    private final Map<TitleKey, String> titleCache = new LinkedHashMap<TitleKey, String>(16, 0.75f, true){ //Recently formatted titles, least recently used are removed first
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TitleKey, String> eldest) {
+            return size() > MAX_CACHED_TITLES;
+        }
+    };
 
     public GUILanguageManager(Locale locale){
         initResources(locale); //Initialize the locale when constructed
@@ -27,6 +38,10 @@ public class GUILanguageManager { //Manages all the messages that the plugin use
     public void initResources(Locale locale){
         preferredLocale = locale;
         resources = (PropertyResourceBundle) PropertyResourceBundle.getBundle(BUNDLE_NAME, locale); //Use java's built-in locale/bundle system for managing localisation
+        templates.clear(); //Compiled for the old resources
+        synchronized (titleCache){
+            titleCache.clear();
+        }
     }
 
     /**
@@ -61,11 +76,85 @@ public class GUILanguageManager { //Manages all the messages that the plugin use
      * @return The formatted string
      */
     public String getFormattedString(String key, Object... args){
-        String str = getString(key);
-        Formatter formatter = new Formatter(new StringBuilder(), getPreferredLocale());
-        formatter.format(str, args);
-        String output = formatter.out().toString();
-        formatter.close();;
-        return output;
+        return getTemplate(key).format(args);
+    }
+
+    /**
+     * Get the compiled template for a string in the resource bundle. Templates are compiled the first time they are asked for
+     * and then reused.
+     * @param key The key of the string in the resource bundle
+     * @return The compiled template
+     */
+    public MessageTemplate getTemplate(String key){
+        MessageTemplate template = templates.get(key);
+        if(template == null){
+            template = new MessageTemplate(getString(key), getPreferredLocale());
+            templates.put(key, template); //Fine if another thread also compiles it, they're equivalent
+        }
+        return template;
+    }
+
+    /**
+     * Get a formatted title, such as a GUI title with a page number. Works the same as getFormattedString(key, base, numbers...)
+     * except that recently formatted titles are remembered, so that formatting the same title again doesn't create a new string.
+     * @param key The key of the string in the resource bundle
+     * @param base The title to format
+     * @param numbers The numbers to format the title with, eg. page number and count
+     * @return The formatted title
+     */
+    public String getFormattedTitle(String key, String base, int... numbers){
+        TitleKey titleKey = new TitleKey(key, base, numbers);
+        synchronized (titleCache){
+            String cached = titleCache.get(titleKey);
+            if(cached != null){
+                return cached;
+            }
+        }
+        Object[] args = new Object[numbers.length+1];
+        args[0] = base;
+        for(int i=0;i<numbers.length;i++){
+            args[i+1] = numbers[i];
+        }
+        String title = getFormattedString(key, args);
+        synchronized (titleCache){
+            titleCache.put(titleKey, title);
+        }
+        return title;
+    }
+
+    private static class TitleKey { //The locale isn't part of the key as the cache is per language manager and cleared when it changes
+        private final String key;
+        private final String base;
+        private final int[] numbers;
+        private final int hash;
+
+        private TitleKey(String key, String base, int[] numbers){
+            this.key = key;
+            this.base = base;
+            this.numbers = numbers.clone();
+            int hash = key == null ? 0 : key.hashCode();
+            hash = 31*hash + (base == null ? 0 : base.hashCode());
+            this.hash = 31*hash + Arrays.hashCode(this.numbers);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o){
+                return true;
+            }
+            if(!(o instanceof TitleKey)){
+                return false;
+            }
+            TitleKey other = (TitleKey) o;
+            return hash == other.hash
+                    && (key == null ? other.key == null : key.equals(other.key))
+                    && (base == null ? other.base == null : base.equals(other.base))
+                    && Arrays.equals(numbers, other.numbers);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
     }
 }
@@ -0,0 +1,134 @@
+package me.eddie.inventoryguiapi.language;
+
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A message format string (Same as used for printf) compiled once so that it can be formatted repeatedly without
+ * being parsed again. Plain string conversions (%s, %1$s, etc...) along with %% and %n are formatted directly,
+ * format strings using anything else are formatted with a {@link Formatter} instead.
+ */
+public class MessageTemplate {
+    private static final int ARG_NEXT = -1; //Part is the next argument in order, eg. %s
+
+    private final String format;
+    private final Locale locale;
+    private final String[] literals; //Text before each argument, with one extra for the text after the last argument
+    private final int[] argIndexes; //Index of the argument to insert after each literal
+    private final boolean compiled; //False if the format uses something we can't handle, so is formatted with a Formatter
+
+    /**
+     * Compile a format string into a MessageTemplate
+     * @param format The format string
+     * @param locale The locale to format with
+     */
+    public MessageTemplate(String format, Locale locale){
+        if(format == null){
+            throw new IllegalArgumentException("Format must not be null");
+        }
+        this.format = format;
+        this.locale = locale;
+
+        List<String> literals = new ArrayList<String>();
+        List<Integer> argIndexes = new ArrayList<Integer>();
+        StringBuilder literal = new StringBuilder();
+        boolean compiled = true;
+        int i = 0;
+        while(i < format.length() && compiled){
+            char c = format.charAt(i);
+            if(c != '%'){
+                literal.append(c);
+                i++;
+                continue;
+            }
+            if(i+1 >= format.length()){
+                compiled = false; //Invalid, let the Formatter complain about it
+                break;
+            }
+            char next = format.charAt(i+1);
+            if(next == '%'){
+                literal.append('%');
+                i += 2;
+                continue;
+            }
+            if(next == 'n'){
+                literal.append(System.getProperty("line.separator"));
+                i += 2;
+                continue;
+            }
+            if(next == 's'){
+                literals.add(literal.toString());
+                literal.setLength(0);
+                argIndexes.add(ARG_NEXT);
+                i += 2;
+                continue;
+            }
+            //Attempt to read an explicit argument index, eg. %2$s
+            int end = i+1;
+            while(end < format.length() && Character.isDigit(format.charAt(end))){
+                end++;
+            }
+            if(end > i+1 && end+1 < format.length() && format.charAt(end) == '$' && format.charAt(end+1) == 's'){
+                int index = Integer.parseInt(format.substring(i+1, end));
+                if(index < 1){
+                    compiled = false;
+                    break;
+                }
+                literals.add(literal.toString());
+                literal.setLength(0);
+                argIndexes.add(index-1);
+                i = end+2;
+                continue;
+            }
+            compiled = false; //Flags, widths, other conversions, etc...
+        }
+        literals.add(literal.toString());
+
+        this.compiled = compiled;
+        this.literals = literals.toArray(new String[literals.size()]);
+        this.argIndexes = new int[argIndexes.size()];
+        for(int j=0;j<this.argIndexes.length;j++){
+            this.argIndexes[j] = argIndexes.get(j);
+        }
+    }
+
+    /**
+     * Get the format string this template was compiled from
+     * @return The format string
+     */
+    public String getFormat(){
+        return format;
+    }
+
+    /**
+     * Format this template with the given arguments, giving the same result as {@link String#format(Locale, String, Object...)}
+     * @param args The arguments to format with
+     * @return The formatted string
+     */
+    public String format(Object... args){
+        if(!compiled){
+            Formatter formatter = new Formatter(new StringBuilder(), locale);
+            formatter.format(format, args);
+            String output = formatter.out().toString();
+            formatter.close();
+            return output;
+        }
+        if(argIndexes.length == 0){
+            return literals[0];
+        }
+        StringBuilder sb = new StringBuilder(format.length() + 16*argIndexes.length);
+        int nextArg = 0;
+        for(int i=0;i<argIndexes.length;i++){
+            sb.append(literals[i]);
+            int index = argIndexes[i] == ARG_NEXT ? nextArg++ : argIndexes[i];
+            if(args == null || index >= args.length){
+                return new Formatter(locale).format(format, args).toString(); //Let the Formatter throw the same exception it always has
+            }
+            sb.append(String.valueOf(args[index]));
+        }
+        sb.append(literals[literals.length-1]);
+        return sb.toString();
+    }
+}
@@ -1,6 +1,9 @@
 package me.eddie.inventoryguiapi.listeners;
 
+import me.eddie.inventoryguiapi.gui.guis.GUI;
+import me.eddie.inventoryguiapi.gui.guis.InventoryGUI;
 import me.eddie.inventoryguiapi.gui.session.GUISession;
+import me.eddie.inventoryguiapi.gui.session.SharedInventoryHolder;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -10,6 +13,7 @@ import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryView;
 
@@ -19,17 +23,36 @@ import org.bukkit.inventory.InventoryView;
 public class BukkitEventListener implements Listener {
     /**
      * Metadata that if a player has then a GUI will ignore this event
+     * @deprecated Only still checked until the next version. Use {@link EventSuppression#suppress(Player, EventSuppression.Kind...)} with {@link EventSuppression.Kind#CLICK}
      */
+    @Deprecated
     public static String IGNORE_CLICK_EVENT_META = "InventoryGUIAPI.IgnoreClickEvent";
     /**
      * Metadata that if a player has then a GUI will ignore this event
+     * @deprecated Only still checked until the next version. Use {@link EventSuppression#suppress(Player, EventSuppression.Kind...)} with {@link EventSuppression.Kind#DRAG}
      */
+    @Deprecated
     public static String IGNORE_DRAG_EVENT_META = "InventoryGUIAPI.IgnoreClickEvent";
     /**
      * Metadata that if a player has then a GUI will ignore this event
+     * @deprecated Only still checked until the next version. Use {@link EventSuppression#suppress(Player, EventSuppression.Kind...)} with {@link EventSuppression.Kind#CLOSE}
      */
+    @Deprecated
     public static String IGNORE_CLOSE_EVENT_META = "InventoryGUIAPI.IgnoreClickEvent";
 
+    //Check if a player has the deprecated metadata telling GUIs to ignore an event. Always checked until it's removed, so plugins still setting it keep working
+    @SuppressWarnings("deprecation")
+    private static boolean hasLegacyIgnoreMeta(Player player, EventSuppression.Kind kind){
+        switch (kind){
+            case CLICK:
+                return player.hasMetadata(IGNORE_CLICK_EVENT_META);
+            case DRAG:
+                return player.hasMetadata(IGNORE_DRAG_EVENT_META);
+            default:
+                return player.hasMetadata(IGNORE_CLOSE_EVENT_META);
+        }
+    }
+
 
     @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST) //Lowest event priority so other plugins handle event first
     public void onInventoryClick(InventoryClickEvent event){ //Click Event also is the pickup and place item events in the Bukkit API
@@ -39,7 +62,7 @@ public class BukkitEventListener implements Listener {
         }
 
         Player player = (Player) entity;
-        if(player.hasMetadata(IGNORE_CLICK_EVENT_META)){ //ignore this event
+        if(EventSuppression.isSuppressed(player, EventSuppression.Kind.CLICK) || hasLegacyIgnoreMeta(player, EventSuppression.Kind.CLICK)){ //ignore this event
             return;
         }
 
@@ -50,8 +73,11 @@ public class BukkitEventListener implements Listener {
 
         Inventory inventory = iv.getTopInventory();
 
-        GUISession guiSession = GUISession.extractSession(inventory);
+        GUISession guiSession = GUISession.extractSession(inventory, player); //Inventories can be shared by viewers with their own sessions
         if(guiSession == null){
+            if(inventory.getHolder() instanceof SharedInventoryHolder){
+                event.setCancelled(true); //A shared GUI they aren't known to be viewing, so don't let them take anything from it
+            }
             //They didn't click on a GUI
             return; //Ignore
         }
@@ -66,7 +92,13 @@ public class BukkitEventListener implements Listener {
             return;
         }
 
-        guiSession.getInventoryGUI().handleBukkitEvent(event, guiSession);
+        InventoryGUI gui = guiSession.getInventoryGUI();
+        if(gui instanceof GUI && !((GUI) gui).allowClick(player, guiSession, event)){
+            event.setCancelled(true); //Clicking faster than the GUI allows
+            return;
+        }
+
+        gui.handleBukkitEvent(event, guiSession);
     }
 
     @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST) //Lowest event priority so other plugins handle event first
@@ -77,7 +109,7 @@ public class BukkitEventListener implements Listener {
         }
 
         Player player = (Player) entity;
-        if(player.hasMetadata(IGNORE_DRAG_EVENT_META)){ //ignore this event
+        if(EventSuppression.isSuppressed(player, EventSuppression.Kind.DRAG) || hasLegacyIgnoreMeta(player, EventSuppression.Kind.DRAG)){ //ignore this event
             return;
         }
 
@@ -88,14 +120,23 @@ public class BukkitEventListener implements Listener {
 
         Inventory inventory = iv.getTopInventory();
 
-        GUISession guiSession = GUISession.extractSession(inventory);
+        GUISession guiSession = GUISession.extractSession(inventory, player); //Inventories can be shared by viewers with their own sessions
         if(guiSession == null){
+            if(inventory.getHolder() instanceof SharedInventoryHolder){
+                event.setCancelled(true); //A shared GUI they aren't known to be viewing, so don't let them put anything in it
+            }
             //They didn't interact with a GUI
             return; //Ignore
         }
         //They interacted with a GUI
 
-        guiSession.getInventoryGUI().handleBukkitEvent(event, guiSession);
+        InventoryGUI gui = guiSession.getInventoryGUI();
+        if(gui instanceof GUI && !((GUI) gui).allowClick(player, guiSession, event)){
+            event.setCancelled(true); //Dragging faster than the GUI allows
+            return;
+        }
+
+        gui.handleBukkitEvent(event, guiSession);
     }
 
     @EventHandler(ignoreCancelled = true)
@@ -106,7 +147,7 @@ public class BukkitEventListener implements Listener {
         }
 
         Player player = (Player) entity;
-        if(player.hasMetadata(IGNORE_CLOSE_EVENT_META)){ //ignore this event
+        if(EventSuppression.isSuppressed(player, EventSuppression.Kind.CLOSE) || hasLegacyIgnoreMeta(player, EventSuppression.Kind.CLOSE)){ //ignore this event
             return;
         }
 
@@ -117,7 +158,7 @@ public class BukkitEventListener implements Listener {
 
         Inventory inventory = iv.getTopInventory();
 
-        GUISession guiSession = GUISession.extractSession(inventory);
+        GUISession guiSession = GUISession.extractSession(inventory, player); //Inventories can be shared by viewers with their own sessions
         if(guiSession == null){
             //They didn't interact with a GUI
             return; //Ignore
@@ -126,4 +167,9 @@ public class BukkitEventListener implements Listener {
 
         guiSession.getInventoryGUI().handleBukkitEvent(event, guiSession);
     }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event){
+        EventSuppression.clear(event.getPlayer()); //Nothing to ignore for players that have left
+    }
 }
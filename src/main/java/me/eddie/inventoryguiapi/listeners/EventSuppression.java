@@ -0,0 +1,154 @@
+package me.eddie.inventoryguiapi.listeners;
+
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of players whose inventory events GUIs should currently ignore, eg. the close event caused by the API
+ * closing a player's inventory to open the next page of the same GUI. Suppression is scoped: each call to
+ * {@link #suppress(Player, Kind...)} must be matched by releasing the returned Suppression (In a finally block), and
+ * suppressions of the same kind of event can be nested.
+ * Checking if an event is suppressed is a single lookup, as it's done for every inventory event.
+ */
+public final class EventSuppression {
+    /**
+     * The kinds of inventory event that can be suppressed
+     */
+    public static enum Kind {
+        CLICK,
+        DRAG,
+        CLOSE;
+
+        private int bit(){
+            return 1 << ordinal();
+        }
+    }
+
+    private static final ConcurrentMap<UUID, Suppressed> suppressedByPlayer = new ConcurrentHashMap<UUID, Suppressed>();
+    private static final Object writeLock = new Object(); //Held when changing what's suppressed, checks don't lock
+
+    private static class Suppressed {
+        private final int[] counts = new int[Kind.values().length]; //How many times each kind is currently suppressed
+        private volatile int mask = 0; //Bits of the kinds currently suppressed
+    }
+
+    private EventSuppression(){
+
+    }
+
+    /**
+     * Start ignoring events of the given kinds for a player
+     * @param player The player
+     * @param kinds The kinds of event to ignore
+     * @return The Suppression, which must be released to stop ignoring the events
+     */
+    public static Suppression suppress(Player player, Kind... kinds){
+        if(player == null || kinds == null){
+            throw new IllegalArgumentException("Player and kinds must not be null");
+        }
+        UUID id = player.getUniqueId();
+        synchronized (writeLock){
+            Suppressed suppressed = suppressedByPlayer.get(id);
+            if(suppressed == null){
+                suppressed = new Suppressed();
+                suppressedByPlayer.put(id, suppressed);
+            }
+            int mask = suppressed.mask;
+            for(Kind kind:kinds){
+                suppressed.counts[kind.ordinal()]++;
+                mask |= kind.bit();
+            }
+            suppressed.mask = mask;
+        }
+        return new Suppression(id, kinds.clone());
+    }
+
+    /**
+     * Check if events of the given kind are currently being ignored for a player
+     * @param player The player
+     * @param kind The kind of event
+     * @return True if the event should be ignored, False otherwise
+     */
+    public static boolean isSuppressed(Player player, Kind kind){
+        if(suppressedByPlayer.isEmpty()){
+            return false; //Nearly always the case
+        }
+        Suppressed suppressed = suppressedByPlayer.get(player.getUniqueId());
+        return suppressed != null && (suppressed.mask & kind.bit()) != 0;
+    }
+
+    /**
+     * Stop ignoring any events for a player, eg. because they've left
+     * @param player The player
+     */
+    public static void clear(Player player){
+        if(player == null){
+            throw new IllegalArgumentException("Player must not be null");
+        }
+        synchronized (writeLock){
+            suppressedByPlayer.remove(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Stop ignoring any events for every player
+     */
+    public static void clearAll(){
+        synchronized (writeLock){
+            suppressedByPlayer.clear();
+        }
+    }
+
+    private static void release(UUID id, Kind[] kinds){
+        synchronized (writeLock){
+            Suppressed suppressed = suppressedByPlayer.get(id);
+            if(suppressed == null){
+                return; //Cleared since being suppressed
+            }
+            int mask = suppressed.mask;
+            boolean anySuppressed = false;
+            for(Kind kind:kinds){
+                if(suppressed.counts[kind.ordinal()] > 0 && --suppressed.counts[kind.ordinal()] == 0){
+                    mask &= ~kind.bit();
+                }
+            }
+            for(int count:suppressed.counts){
+                anySuppressed |= count > 0;
+            }
+            suppressed.mask = mask;
+            if(!anySuppressed){
+                suppressedByPlayer.remove(id);
+            }
+        }
+    }
+
+    /**
+     * A player's events being ignored, until released
+     */
+    public static final class Suppression {
+        private final UUID id;
+        private final Kind[] kinds;
+        private boolean released = false;
+
+        private Suppression(UUID id, Kind[] kinds){
+            this.id = id;
+            this.kinds = kinds;
+        }
+
+        /**
+         * Stop ignoring the events. Releasing more than once has no further effect.
+         */
+        public void release(){
+            synchronized (this){
+                if(released){
+                    return;
+                }
+                released = true;
+            }
+            EventSuppression.release(id, kinds);
+        }
+    }
+}
@@ -2,14 +2,22 @@ package me.eddie.inventoryguiapi.plugin;
 
 import me.eddie.inventoryguiapi.language.GUILanguageManager;
 import me.eddie.inventoryguiapi.listeners.BukkitEventListener;
+import me.eddie.inventoryguiapi.listeners.EventSuppression;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * The 'plugin' class. This class is the entrypoint of the plugin and is what defines a 'Plugin' to the Bukkit API
  */
 public class InventoryGUIAPI extends JavaPlugin {
     private static InventoryGUIAPI instance; //The instance of the plugin; we can do this because there will only ever be one instance of the plugin object on the server
     private static GUILanguageManager languageManager; //The language manager which defines all the messages the plugin uses
+    private static final ConcurrentMap<Locale, GUILanguageManager> languageManagersByLocale = new ConcurrentHashMap<Locale, GUILanguageManager>(); //Language managers for client locales
+    private static final ConcurrentMap<Locale, GUILanguageManager> languageManagersByBundle = new ConcurrentHashMap<Locale, GUILanguageManager>(); //Language managers by the locale of the bundle they loaded, so locales using the same messages share one
 
     public static InventoryGUIAPI getInstance(){
         return instance;
@@ -19,6 +27,74 @@ public class InventoryGUIAPI extends JavaPlugin {
         return languageManager;
     }
 
+    /**
+     * Get the language manager for the language a player's client is using. Language managers are created once per locale
+     * and shared, and players whose locale can't be determined get the default language manager.
+     * @param player The player to get the language manager for, may be null
+     * @return The language manager to use for messages shown to this player
+     */
+    public static GUILanguageManager getLanguageManager(Player player){
+        Locale locale = getLocale(player);
+        if(locale == null){
+            return getLanguageManager();
+        }
+        GUILanguageManager manager = languageManagersByLocale.get(locale);
+        if(manager == null){
+            manager = new GUILanguageManager(locale);
+            Locale bundleLocale = manager.getResources().getLocale();
+            GUILanguageManager existing = languageManagersByBundle.putIfAbsent(bundleLocale, manager);
+            if(existing != null){
+                manager = existing; //Another locale already loaded these messages, eg. en_GB and en_US
+            }
+            existing = languageManagersByLocale.putIfAbsent(locale, manager);
+            if(existing != null){
+                manager = existing;
+            }
+        }
+        return manager;
+    }
+
+    /**
+     * Get the locale of the messages shown to a player. Players whose client locales share the same messages, eg. en_GB
+     * and en_US, get the same locale, so this can be used to share anything shown to players by language.
+     * @param player The player to get the message locale of, may be null
+     * @return The locale of the messages loaded for the player, or null if no messages are loaded
+     */
+    public static Locale getMessageLocale(Player player){
+        GUILanguageManager manager = getLanguageManager(player);
+        return manager == null ? null : manager.getResources().getLocale();
+    }
+
+    /**
+     * Get the locale of a player's client
+     * @param player The player to get the locale of, may be null
+     * @return The player's locale, or null if it can't be determined
+     */
+    public static Locale getLocale(Player player){
+        if(player == null){
+            return null;
+        }
+        String tag;
+        try {
+            Player.Spigot spigot = player.spigot();
+            tag = spigot == null ? null : spigot.getLocale();
+        }
+        catch(UnsupportedOperationException e){
+            return null; //Not running on spigot
+        }
+        if(tag == null || tag.isEmpty()){
+            return null;
+        }
+        String[] parts = tag.split("[_-]", 3); //Clients send locales like en_US or en_us
+        if(parts.length == 1){
+            return new Locale(parts[0].toLowerCase(Locale.ENGLISH));
+        }
+        if(parts.length == 2){
+            return new Locale(parts[0].toLowerCase(Locale.ENGLISH), parts[1].toUpperCase(Locale.ENGLISH));
+        }
+        return new Locale(parts[0].toLowerCase(Locale.ENGLISH), parts[1].toUpperCase(Locale.ENGLISH), parts[2]);
+    }
+
     @Override
     public void onEnable() { //Called when the server starts up and this plugin gets enabled
         instance = this;
@@ -32,6 +108,9 @@ public class InventoryGUIAPI extends JavaPlugin {
     @Override
     public void onDisable(){ //Called when the server shuts down and this plugin gets disabled
         getLogger().info(languageManager.getFormattedString("plugin.shutdown", getName()));
+        languageManagersByLocale.clear();
+        languageManagersByBundle.clear();
+        EventSuppression.clearAll();
     }
 
 }
@@ -0,0 +1,66 @@
+package me.eddie.inventoryguiapi.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executors for running work on the server thread or off of it, using the Bukkit scheduler
+ */
+public class BukkitExecutors {
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * Get an executor that runs work immediately on the thread that submits it
+     * @return The executor
+     */
+    public static Executor direct(){
+        return DIRECT;
+    }
+
+    /**
+     * Get an executor that runs work on the server thread. Work submitted from the server thread is run immediately,
+     * otherwise it is run at the start of the next tick.
+     * @param plugin The plugin to schedule work as
+     * @return The executor
+     */
+    public static Executor mainThread(final Plugin plugin){
+        if(plugin == null){
+            throw new IllegalArgumentException("Plugin must not be null");
+        }
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if(Bukkit.isPrimaryThread()){
+                    command.run();
+                    return;
+                }
+                Bukkit.getScheduler().runTask(plugin, command);
+            }
+        };
+    }
+
+    /**
+     * Get an executor that runs work off of the server thread, using Bukkit's asynchronous task pool.
+     * Work run by it must not use the parts of the Bukkit API that aren't thread safe.
+     * @param plugin The plugin to schedule work as
+     * @return The executor
+     */
+    public static Executor async(final Plugin plugin){
+        if(plugin == null){
+            throw new IllegalArgumentException("Plugin must not be null");
+        }
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                Bukkit.getScheduler().runTaskAsynchronously(plugin, command);
+            }
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package me.eddie.inventoryguiapi.util;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * A fingerprint of the parts of an item that decide whether or not it can stack with another: it's type, durability and
+ * meta. Computing a fingerprint reads the item's meta, so it should be done once and kept alongside an item that isn't
+ * going to be modified (Eg. a GUIElement's display item), and then compared against other fingerprints cheaply.
+ * Items with different fingerprints can never stack, items with the same fingerprint almost certainly can but should be
+ * confirmed with {@link ItemStack#isSimilar(ItemStack)}.
+ */
+public final class ItemFingerprint {
+    private final Material type;
+    private final short durability;
+    private final boolean hasMeta;
+    private final int metaHash;
+    private final int hash;
+
+    private ItemFingerprint(Material type, short durability, boolean hasMeta, int metaHash){
+        this.type = type;
+        this.durability = durability;
+        this.hasMeta = hasMeta;
+        this.metaHash = metaHash;
+        int hash = type.hashCode();
+        hash = 31*hash + durability;
+        hash = 31*hash + (hasMeta ? metaHash : 0);
+        this.hash = hash;
+    }
+
+    /**
+     * Compute the fingerprint of an item
+     * @param item The item
+     * @return The fingerprint of the item
+     */
+    public static ItemFingerprint of(ItemStack item){
+        if(item == null){
+            throw new IllegalArgumentException("Item must not be null");
+        }
+        boolean hasMeta = item.hasItemMeta();
+        return new ItemFingerprint(item.getType(), item.getDurability(), hasMeta, hasMeta ? item.getItemMeta().hashCode() : 0);
+    }
+
+    /**
+     * Get the type of the item this fingerprint is of
+     * @return The type
+     */
+    public Material getType(){
+        return type;
+    }
+
+    /**
+     * Get the durability of the item this fingerprint is of
+     * @return The durability
+     */
+    public short getDurability(){
+        return durability;
+    }
+
+    /**
+     * Check if the item this fingerprint is of might be able to stack with the item of another fingerprint
+     * @param other The fingerprint of the other item
+     * @return False if the items definitely can't stack, True if they probably can
+     */
+    public boolean mightStackWith(ItemFingerprint other){
+        return other != null && (other == this || equals(other));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o){
+            return true;
+        }
+        if(!(o instanceof ItemFingerprint)){
+            return false;
+        }
+        ItemFingerprint other = (ItemFingerprint) o;
+        return hash == other.hash && type == other.type && durability == other.durability
+                && hasMeta == other.hasMeta && metaHash == other.metaHash;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemFingerprint{"+type+":"+durability+(hasMeta ? ",meta="+Integer.toHexString(metaHash) : "")+"}";
+    }
+}
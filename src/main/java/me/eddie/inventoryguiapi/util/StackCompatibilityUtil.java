@@ -6,6 +6,38 @@ import org.bukkit.inventory.ItemStack;
  * Checks if two items are capable of stacking
  */
 public class StackCompatibilityUtil {
+    /**
+     * Check if two items can stack. Cheap differences (Type, durability and whether or not they have meta) are checked
+     * before the items' meta is compared.
+     * @param a An item
+     * @param b The other item
+     * @return True if the items can stack, False otherwise
+     */
+    public static boolean canStack(ItemStack a, ItemStack b){
+        if(a == b){
+            return true;
+        }
+        if(a.getType() != b.getType() || a.getDurability() != b.getDurability() || a.hasItemMeta() != b.hasItemMeta()){
+            return false;
+        }
+        return a.isSimilar(b);
+    }
+
+    /**
+     * Check if two items can stack, using their fingerprints to rule out items that can't without comparing their meta.
+     * @param a An item
+     * @param aFingerprint The fingerprint of the first item, or null if it isn't known
+     * @param b The other item
+     * @param bFingerprint The fingerprint of the other item, or null if it isn't known
+     * @return True if the items can stack, False otherwise
+     */
+    public static boolean canStack(ItemStack a, ItemFingerprint aFingerprint, ItemStack b, ItemFingerprint bFingerprint){
+        if(aFingerprint != null && bFingerprint != null && !aFingerprint.mightStackWith(bFingerprint)){
+            return false;
+        }
+        return canStack(a, b);
+    }
+
     public static boolean canStack(ItemStack... items){
         if(items.length < 1){
             return true;
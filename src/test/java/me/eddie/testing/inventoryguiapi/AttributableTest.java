@@ -0,0 +1,60 @@
+package me.eddie.testing.inventoryguiapi;
+
+import junit.framework.Assert;
+import me.eddie.inventoryguiapi.gui.session.AttributeKey;
+import me.eddie.inventoryguiapi.gui.session.GUIState;
+import org.junit.Test;
+
+/**
+ * Test written to test typed attributes of Attributables
+ */
+public class AttributableTest {
+    @Test
+    public void testTypedAttributes(){
+        AttributeKey<Integer> count = AttributeKey.of("test.count", Integer.class);
+        AttributeKey<String> name = AttributeKey.of("test.name", String.class);
+        Assert.assertSame(count, AttributeKey.of("test.count", Integer.class)); //Interned by name
+
+        GUIState state = new GUIState();
+        Assert.assertFalse(state.hasAttribute(count));
+        state.putAttribute(count, 5);
+        state.putAttribute(name, null);
+        Assert.assertEquals(Integer.valueOf(5), state.getAttribute(count));
+        Assert.assertTrue(state.hasAttribute(name)); //Null values still exist
+        Assert.assertNull(state.getAttribute(name));
+
+        Object asObject = count;
+        Assert.assertEquals(5, state.getAttribute(asObject)); //The Object-keyed methods find typed attributes too
+        Assert.assertEquals(5, state.getAttribute("test.count")); //And under the key's name
+        state.putAttribute("test.count", 6);
+        Assert.assertEquals(Integer.valueOf(6), state.getAttribute(count));
+        Assert.assertEquals(Integer.valueOf(6), state.removeAttribute(count));
+        Assert.assertFalse(state.hasAttribute(count));
+        Assert.assertFalse(state.hasAttribute("test.count"));
+        try {
+            state.putAttribute("test.count", "six");
+            Assert.fail("Values of a typed attribute should have to be of it's type");
+        }
+        catch(IllegalArgumentException e){
+            //Expected
+        }
+
+        //Keys that aren't interned are stored under their name only
+        AttributeKey<String> slot = AttributeKey.create("test.slot.1", String.class);
+        Assert.assertFalse(slot.isInterned());
+        Assert.assertNotSame(slot, AttributeKey.create("test.slot.1", String.class));
+        state.putAttribute(slot, "item");
+        Assert.assertEquals("item", state.getAttribute(AttributeKey.create("test.slot.1", String.class)));
+        Assert.assertEquals("item", state.getAttribute("test.slot.1"));
+        Assert.assertEquals("item", state.removeAttribute(slot));
+        Assert.assertFalse(state.hasAttribute("test.slot.1"));
+
+        try {
+            AttributeKey.of("test.count", String.class);
+            Assert.fail("Keys should not be allowed to change type");
+        }
+        catch(IllegalArgumentException e){
+            //Expected
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package me.eddie.testing.inventoryguiapi;
+
+import junit.framework.Assert;
+import me.eddie.inventoryguiapi.gui.elements.ActionItem;
+import me.eddie.inventoryguiapi.gui.events.GUIClickEvent;
+import me.eddie.inventoryguiapi.gui.guis.ClickRateLimiter;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.UUID;
+
+/**
+ * Test written to test ClickRateLimiter
+ */
+public class ClickRateLimiterTest {
+    @Test
+    public void testClickRateLimiter(){
+        Player player = Mockito.mock(Player.class);
+        Mockito.when(player.getUniqueId()).thenReturn(UUID.randomUUID());
+        Player otherPlayer = Mockito.mock(Player.class);
+        Mockito.when(otherPlayer.getUniqueId()).thenReturn(UUID.randomUUID());
+
+        //Only the burst is allowed in quick succession, per viewer
+        ClickRateLimiter limiter = new ClickRateLimiter(1, 3, ClickRateLimiter.NO_DUPLICATE_WINDOW);
+        for(int i=0;i<3;i++){
+            Assert.assertTrue(limiter.tryClick(player, 1, 0, null, ClickType.LEFT));
+        }
+        Assert.assertFalse(limiter.tryClick(player, 1, 0, null, ClickType.LEFT));
+        Assert.assertTrue(limiter.tryClick(otherPlayer, 1, 0, null, ClickType.LEFT));
+        Assert.assertEquals(4, limiter.getAllowedClicks());
+        Assert.assertEquals(1, limiter.getThrottledClicks());
+
+        //Forgotten viewers start with a full budget again
+        limiter.forget(player);
+        Assert.assertTrue(limiter.tryClick(player, 1, 0, null, ClickType.LEFT));
+
+        //Repeated clicks on an ActionItem in the same slot of the same page are refused within the window
+        ActionItem actionItem = new ActionItem(new FakeItemStack(Material.STONE), new ActionItem.ActionHandler() {
+            @Override
+            public void onClick(GUIClickEvent event) {
+
+            }
+        });
+        limiter = new ClickRateLimiter(1, 10, 60000);
+        Assert.assertTrue(limiter.tryClick(player, 1, 8, actionItem, ClickType.LEFT));
+        Assert.assertFalse(limiter.tryClick(player, 1, 8, actionItem, ClickType.LEFT));
+        Assert.assertTrue(limiter.tryClick(player, 1, 8, actionItem, ClickType.RIGHT)); //Clicked a different way
+        Assert.assertTrue(limiter.tryClick(otherPlayer, 1, 8, actionItem, ClickType.LEFT));
+        Assert.assertEquals(1, limiter.getDuplicateClicks());
+
+        //The same ActionItem elsewhere, eg. a page button on the page it led to, is a different action
+        Assert.assertTrue(limiter.tryClick(player, 2, 8, actionItem, ClickType.RIGHT));
+        Assert.assertTrue(limiter.tryClick(player, 2, 7, actionItem, ClickType.RIGHT));
+        Assert.assertFalse(limiter.tryClick(player, 2, 7, actionItem, ClickType.RIGHT));
+        Assert.assertEquals(2, limiter.getDuplicateClicks());
+
+        //The GUI's budget is shared by every viewer
+        limiter = new ClickRateLimiter(1, 3, ClickRateLimiter.NO_DUPLICATE_WINDOW, 1, 4);
+        for(int i=0;i<3;i++){
+            Assert.assertTrue(limiter.tryClick(player, 1, 0, null, ClickType.LEFT));
+        }
+        Assert.assertTrue(limiter.tryClick(otherPlayer, 1, 0, null, ClickType.LEFT));
+        Assert.assertFalse(limiter.tryClick(otherPlayer, 1, 0, null, ClickType.LEFT)); //Has budget left, but the GUI doesn't
+        Assert.assertEquals(1, limiter.getThrottledClicks());
+    }
+}
@@ -0,0 +1,117 @@
+package me.eddie.testing.inventoryguiapi;
+
+import junit.framework.Assert;
+import me.eddie.inventoryguiapi.gui.elements.ActionItem;
+import me.eddie.inventoryguiapi.gui.elements.GUIElement;
+import me.eddie.inventoryguiapi.gui.events.GUIClickEvent;
+import me.eddie.inventoryguiapi.gui.guis.InventoryGUI;
+import me.eddie.inventoryguiapi.gui.session.GUISession;
+import me.eddie.inventoryguiapi.gui.session.GUIState;
+import me.eddie.inventoryguiapi.gui.session.InventoryState;
+import me.eddie.inventoryguiapi.gui.view.GUIPresenter;
+import me.eddie.inventoryguiapi.gui.view.RenderedContents;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test written to test GUIPresenter only updating the slots that have changed when diff rendering
+ */
+public class DiffRenderingTest {
+    @Test
+    public void testDiffRendering(){
+        try {
+            TestUtil.mockItemFactory();
+        } catch (NoSuchFieldException e) {
+            e.printStackTrace();
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        }
+
+        InventoryGUI inventoryGUI = Mockito.mock(InventoryGUI.class); //Mock an inventory GUI of a single line
+        Mockito.when(inventoryGUI.getMaximumGUISize()).thenReturn(9);
+        Mockito.when(inventoryGUI.getInventoryType()).thenReturn(InventoryType.CHEST);
+        Mockito.when(inventoryGUI.isGUISizeDynamic()).thenReturn(false);
+
+        GUIState guiState = new GUIState();
+        guiState.updateInventoryState(1, genInvState(Material.STONE, Material.DIRT, Material.WOOD));
+        GUISession session = new GUISession(inventoryGUI, 1, guiState);
+
+        //The player is already looking at an inventory of this session, so it's re-used
+        Player viewer = Mockito.mock(Player.class);
+        Inventory inventory = Mockito.mock(Inventory.class);
+        Mockito.when(inventory.getHolder()).thenReturn(session);
+        Mockito.when(inventory.getSize()).thenReturn(9);
+        Mockito.when(inventory.getTitle()).thenReturn("TITLE");
+        Mockito.when(inventory.getType()).thenReturn(InventoryType.CHEST);
+        InventoryView view = Mockito.mock(InventoryView.class);
+        Mockito.when(view.getTopInventory()).thenReturn(inventory);
+        Mockito.when(viewer.getOpenInventory()).thenReturn(view);
+
+        GUIPresenter presenter = new GUIPresenter(true);
+        Assert.assertTrue(presenter.isDiffRendering());
+
+        //Nothing is known about what an inventory that wasn't created by the presenter contains, so every slot is set
+        presenter.updateView(viewer, session);
+        Mockito.verify(inventory, Mockito.times(9)).setItem(Mockito.anyInt(), Mockito.any(ItemStack.class));
+        Mockito.verify(viewer, Mockito.times(1)).updateInventory();
+
+        //Recalculated contents that look the same don't touch the inventory, or re-send it
+        guiState.updateInventoryState(1, genInvState(Material.STONE, Material.DIRT, Material.WOOD));
+        presenter.updateView(viewer, session);
+        Mockito.verify(inventory, Mockito.times(9)).setItem(Mockito.anyInt(), Mockito.any(ItemStack.class));
+        Mockito.verify(viewer, Mockito.times(1)).updateInventory();
+
+        //Only the slot that changed is set
+        guiState.updateInventoryState(1, genInvState(Material.STONE, Material.PAPER, Material.WOOD));
+        presenter.updateView(viewer, session);
+        Mockito.verify(inventory, Mockito.times(10)).setItem(Mockito.anyInt(), Mockito.any(ItemStack.class));
+        Mockito.verify(inventory, Mockito.times(2)).setItem(Mockito.eq(1), Mockito.any(ItemStack.class));
+        Mockito.verify(viewer, Mockito.times(2)).updateInventory();
+
+        //Without diff rendering every slot is set every time
+        presenter = new GUIPresenter(false);
+        presenter.updateView(viewer, session);
+        Mockito.verify(inventory, Mockito.times(19)).setItem(Mockito.anyInt(), Mockito.any(ItemStack.class));
+        Mockito.verify(viewer, Mockito.times(3)).updateInventory();
+
+        //Which is done without recording what was rendered, unless insert candidates are tracked
+        Inventory other = Mockito.mock(Inventory.class);
+        Mockito.when(other.getHolder()).thenReturn(session);
+        Mockito.when(other.getSize()).thenReturn(9);
+        Mockito.when(other.getTitle()).thenReturn("TITLE");
+        Mockito.when(other.getType()).thenReturn(InventoryType.CHEST);
+        Mockito.when(view.getTopInventory()).thenReturn(other);
+        presenter.updateView(viewer, session);
+        Assert.assertNull(RenderedContents.get(other));
+        new GUIPresenter(false, true).updateView(viewer, session);
+        Assert.assertNotNull(RenderedContents.get(other));
+    }
+
+    //Generates an inventory state with an ActionItem of each of the given types, in order from the first slot
+    private InventoryState genInvState(Material... types){
+        Map<Integer, GUIElement> contents = new HashMap<Integer, GUIElement>();
+        for(int i=0;i<types.length;i++){
+            contents.put(i, new ActionItem(new ItemStack(types[i], 1), new ActionItem.ActionHandler() {
+                @Override
+                public void onClick(GUIClickEvent event) {
+
+                }
+            }));
+        }
+
+        InventoryState toDisplay = new InventoryState();
+        toDisplay.setTitle("TITLE");
+        toDisplay.setHasNextPage(false);
+        toDisplay.setComputedContentsBySlot(contents);
+        return toDisplay;
+    }
+}
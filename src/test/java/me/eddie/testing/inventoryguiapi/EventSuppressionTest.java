@@ -0,0 +1,44 @@
+package me.eddie.testing.inventoryguiapi;
+
+import junit.framework.Assert;
+import me.eddie.inventoryguiapi.listeners.EventSuppression;
+import org.bukkit.entity.Player;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.UUID;
+
+/**
+ * Test written to test EventSuppression
+ */
+public class EventSuppressionTest {
+    @Test
+    public void testEventSuppression(){
+        Player player = Mockito.mock(Player.class);
+        Mockito.when(player.getUniqueId()).thenReturn(UUID.randomUUID());
+        Player otherPlayer = Mockito.mock(Player.class);
+        Mockito.when(otherPlayer.getUniqueId()).thenReturn(UUID.randomUUID());
+
+        Assert.assertFalse(EventSuppression.isSuppressed(player, EventSuppression.Kind.CLOSE));
+
+        //Only the given kinds of event are suppressed, and only for the given player
+        EventSuppression.Suppression outer = EventSuppression.suppress(player, EventSuppression.Kind.CLOSE);
+        Assert.assertTrue(EventSuppression.isSuppressed(player, EventSuppression.Kind.CLOSE));
+        Assert.assertFalse(EventSuppression.isSuppressed(player, EventSuppression.Kind.CLICK));
+        Assert.assertFalse(EventSuppression.isSuppressed(otherPlayer, EventSuppression.Kind.CLOSE));
+
+        //Nested suppressions last until the outermost is released
+        EventSuppression.Suppression inner = EventSuppression.suppress(player, EventSuppression.Kind.CLOSE, EventSuppression.Kind.DRAG);
+        inner.release();
+        inner.release(); //Releasing again does nothing
+        Assert.assertTrue(EventSuppression.isSuppressed(player, EventSuppression.Kind.CLOSE));
+        Assert.assertFalse(EventSuppression.isSuppressed(player, EventSuppression.Kind.DRAG));
+        outer.release();
+        Assert.assertFalse(EventSuppression.isSuppressed(player, EventSuppression.Kind.CLOSE));
+
+        //Clearing a player stops everything being suppressed for them
+        EventSuppression.suppress(player, EventSuppression.Kind.CLICK);
+        EventSuppression.clear(player);
+        Assert.assertFalse(EventSuppression.isSuppressed(player, EventSuppression.Kind.CLICK));
+    }
+}
@@ -4,6 +4,7 @@ import junit.framework.Assert;
 import me.eddie.inventoryguiapi.gui.contents.GUIContentsProvider;
 import me.eddie.inventoryguiapi.gui.contents.GUIPopulator;
 import me.eddie.inventoryguiapi.gui.elements.AbstractGUIElement;
+import me.eddie.inventoryguiapi.gui.elements.ActionItem;
 import me.eddie.inventoryguiapi.gui.elements.GUIElement;
 import me.eddie.inventoryguiapi.gui.elements.GUIElementFactory;
 import me.eddie.inventoryguiapi.gui.guis.GUIBuilder;
@@ -11,6 +12,8 @@ import me.eddie.inventoryguiapi.gui.guis.InventoryGUI;
 import me.eddie.inventoryguiapi.gui.session.GUISession;
 import me.eddie.inventoryguiapi.gui.session.GUIState;
 import me.eddie.inventoryguiapi.gui.session.InventoryState;
+import me.eddie.inventoryguiapi.gui.session.PageSnapshot;
+import me.eddie.inventoryguiapi.language.GUILanguageManager;
 import me.eddie.inventoryguiapi.plugin.InventoryGUIAPI;
 import me.eddie.inventoryguiapi.util.Callback;
 import org.bukkit.Material;
@@ -23,6 +26,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -67,6 +71,175 @@ public class GUIPopulatorTest {
         testElementPlacementAndButtonPlacement(54, 52, true, 9, true);
     }
 
+    @Test
+    public void testStaleResultsDropped(){
+        TestUtil.mockGUIElementFactory();
+        TestUtil.mockPlugin();
+
+        //Contents provider that only answers when told to, like a slow asynchronous one would
+        final List<Callback<GUIContentsProvider.GUIContentsResponse>> pending = new ArrayList<Callback<GUIContentsProvider.GUIContentsResponse>>();
+        InventoryGUI gui = new GUIBuilder().guiStateBehaviour(GUIBuilder.GUIStateBehaviour.LOCAL_TO_SESSION)
+                .size(54)
+                .contentsProvider(new GUIContentsProvider() {
+                    @Override
+                    public void genContents(Player viewer, int page, GUISession session, Callback<GUIContentsResponse> callback) {
+                        pending.add(callback);
+                    }
+
+                    @Override
+                    public void genTitle(Player viewer, int page, GUISession session, Callback<String> callback) {
+                        callback.call("Title "+page);
+                    }
+                }).build();
+
+        GUIPopulator populator = new GUIPopulator();
+        final GUISession session = new GUISession(gui, 2, new GUIState());
+        final Player viewer = Mockito.mock(Player.class);
+        final List<Integer> completed = new ArrayList<Integer>();
+
+        populator.populateGUI(session, viewer, new Callback<Void>() { //Request page 2
+            @Override
+            public void call(Void param) {
+                completed.add(2);
+            }
+        });
+        session.setPage(3);
+        populator.populateGUI(session, viewer, new Callback<Void>() { //Move on to page 3 before page 2 has been calculated
+            @Override
+            public void call(Void param) {
+                completed.add(3);
+            }
+        });
+
+        Assert.assertEquals(2, pending.size());
+        pending.get(0).call(GUIContentsProvider.GUIContentsResponse.create(false, new ArrayList<GUIElement>())); //Late answer for page 2
+        Assert.assertTrue(completed.isEmpty()); //Should have been dropped
+        Assert.assertNull(session.getGUIState().getExistingInventoryState(2).getTitle());
+
+        pending.get(1).call(GUIContentsProvider.GUIContentsResponse.create(false, new ArrayList<GUIElement>()));
+        Assert.assertEquals(1, completed.size());
+        Assert.assertEquals(3, (int) completed.get(0));
+        Assert.assertEquals("Title 3", session.getGUIState().getExistingInventoryState(3).getTitle());
+
+        //Closing cancels anything still in progress
+        populator.populateGUI(session, viewer, new Callback<Void>() {
+            @Override
+            public void call(Void param) {
+                completed.add(3);
+            }
+        });
+        session.cancelRequests();
+        Assert.assertTrue(session.getCurrentRequest().isCancelled());
+        pending.get(2).call(GUIContentsProvider.GUIContentsResponse.create(false, new ArrayList<GUIElement>()));
+        Assert.assertEquals(1, completed.size());
+    }
+
+    @Test
+    public void testTitlesAndButtonsPerLanguage(){
+        TestUtil.mockGUIElementFactory();
+        TestUtil.mockPlugin();
+
+        //Contents provider whose title is in the language of the viewer it's generated for
+        InventoryGUI gui = new GUIBuilder().guiStateBehaviour(GUIBuilder.GUIStateBehaviour.LOCAL_TO_SESSION)
+                .size(54)
+                .contentsProvider(new GUIContentsProvider() {
+                    @Override
+                    public void genContents(Player viewer, int page, GUISession session, Callback<GUIContentsResponse> callback) {
+                        callback.call(GUIContentsResponse.create(true, new ArrayList<GUIElement>()));
+                    }
+
+                    @Override
+                    public void genTitle(Player viewer, int page, GUISession session, Callback<String> callback) {
+                        callback.call(InventoryGUIAPI.getLanguageManager(viewer).getString("gui.title.loading"));
+                    }
+                }).build();
+
+        GUIPopulator populator = new GUIPopulator();
+        GUIState guiState = new GUIState();
+        GUISession session = new GUISession(gui, 1, guiState);
+        Player english = Mockito.mock(Player.class); //Uses the default language
+        Player spanish = Mockito.mock(Player.class);
+        Player.Spigot spigot = Mockito.mock(Player.Spigot.class);
+        Mockito.when(spigot.getLocale()).thenReturn("es_ES");
+        Mockito.when(spanish.spigot()).thenReturn(spigot);
+
+        //Calculated once, but titled in the language of each viewer it'll be shown to
+        populator.populateGUI(session, english, session.beginRequest(), Arrays.asList(english, spanish), new Callback<Void>() {
+            @Override
+            public void call(Void param) {
+
+            }
+        });
+        PageSnapshot page = guiState.getExistingInventoryState(1).getSnapshot();
+        String englishTitle = InventoryGUIAPI.getLanguageManager().getString("gui.title.loading");
+        String spanishTitle = InventoryGUIAPI.getLanguageManager(spanish).getString("gui.title.loading");
+        Assert.assertFalse(englishTitle.equals(spanishTitle));
+        Assert.assertEquals(englishTitle, page.getTitle());
+        Assert.assertEquals(englishTitle, page.getTitle(InventoryGUIAPI.getMessageLocale(english)));
+        Assert.assertEquals(spanishTitle, page.getTitle(InventoryGUIAPI.getMessageLocale(spanish)));
+
+        //The page buttons are shared, but shown to each viewer in their own language
+        GUIElement forwardButton = page.getLayout().getElement(53);
+        Assert.assertEquals(InventoryGUIAPI.getLanguageManager().getString("gui.button.nextPage.name"),
+                forwardButton.getDisplay(english, session).getItemMeta().getDisplayName());
+        Assert.assertEquals(InventoryGUIAPI.getLanguageManager(spanish).getString("gui.button.nextPage.name"),
+                forwardButton.getDisplay(spanish, session).getItemMeta().getDisplayName());
+    }
+
+    @Test
+    public void testPageButtonHooks(){
+        TestUtil.mockGUIElementFactory();
+        TestUtil.mockPlugin();
+
+        //Populator whose next page button is an arrow, and which still overrides the old previous page button hook
+        GUIPopulator populator = new GUIPopulator(){
+            @Override
+            public ActionItem genNextPageButton(InventoryGUI gui, GUISession session, GUILanguageManager languageManager) {
+                ActionItem button = super.genNextPageButton(gui, session, languageManager);
+                button.setDisplayItem(new ItemStack(Material.ARROW));
+                return button;
+            }
+
+            @Override
+            public ActionItem genPrevPageButton(InventoryGUI gui, GUISession session) {
+                ActionItem button = super.genPrevPageButton(gui, session);
+                button.setDisplayItem(new ItemStack(Material.BOOK));
+                return button;
+            }
+        };
+        InventoryGUI gui = new GUIBuilder().guiStateBehaviour(GUIBuilder.GUIStateBehaviour.LOCAL_TO_SESSION)
+                .size(54)
+                .populator(populator)
+                .contentsProvider(new GUIContentsProvider() {
+                    @Override
+                    public void genContents(Player viewer, int page, GUISession session, Callback<GUIContentsResponse> callback) {
+                        callback.call(GUIContentsResponse.create(true, new ArrayList<GUIElement>()));
+                    }
+
+                    @Override
+                    public void genTitle(Player viewer, int page, GUISession session, Callback<String> callback) {
+                        callback.call("Title");
+                    }
+                }).build();
+
+        GUIState guiState = new GUIState();
+        GUISession session = new GUISession(gui, 2, guiState);
+        Player viewer = Mockito.mock(Player.class);
+        populator.populateGUI(session, viewer, new Callback<Void>() {
+            @Override
+            public void call(Void param) {
+
+            }
+        });
+        InventoryState state = guiState.getExistingInventoryState(2);
+        Assert.assertEquals(Material.BOOK, state.getElementInSlot(52).getDisplay(viewer, session).getType());
+        Assert.assertEquals(Material.ARROW, state.getElementInSlot(53).getDisplay(viewer, session).getType());
+
+        //Other populators keep using the default buttons
+        Assert.assertEquals(Material.PAPER, new GUIPopulator().genNextPageButton(gui, session, InventoryGUIAPI.getLanguageManager())
+                .getDisplayItem().getType());
+    }
+
     private void testElementPlacementAndButtonPlacement(final int invSize, final int elemAmt, final boolean setDesiredSlots, final int desiredSlotOffsets, final boolean shouldHaveNextPage){ //Test if page buttons were generated correctly for given size inv and num of elems
         GUIPopulator populator = new GUIPopulator(); //Default GUIPopulator
         GUIBuilder guiBuilder = new GUIBuilder().guiStateBehaviour(GUIBuilder.GUIStateBehaviour.LOCAL_TO_SESSION)
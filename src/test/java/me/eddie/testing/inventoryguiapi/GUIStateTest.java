@@ -0,0 +1,102 @@
+package me.eddie.testing.inventoryguiapi;
+
+import junit.framework.Assert;
+import me.eddie.inventoryguiapi.gui.session.GUIState;
+import me.eddie.inventoryguiapi.gui.session.InventoryState;
+import me.eddie.inventoryguiapi.gui.session.RequestToken;
+import org.junit.Test;
+
+/**
+ * Test written to test the page retention and prefetched pages of GUIState
+ */
+public class GUIStateTest {
+    @Test
+    public void testPageRetention(){
+        GUIState guiState = new GUIState();
+        guiState.setPageRetention(5, 1);
+
+        for(int page=1;page<=20;page++){ //Page through the GUI
+            guiState.getOrCreateInventoryState(page);
+        }
+        Assert.assertEquals(5, guiState.getInventoryStatesByPage().size());
+        Assert.assertEquals(15, guiState.getEvictedPageCount());
+        Assert.assertTrue(guiState.hasInventoryState(19));
+        Assert.assertFalse(guiState.hasInventoryState(1));
+
+        InventoryState page16 = guiState.getExistingInventoryState(16); //Using a page makes it the most recently used
+        guiState.getOrCreateInventoryState(21);
+        Assert.assertSame(page16, guiState.getExistingInventoryState(16));
+        Assert.assertFalse(guiState.hasInventoryState(17)); //Now the least recently used
+        Assert.assertTrue(guiState.wasEvicted(17));
+        Assert.assertFalse(guiState.wasEvicted(16));
+        guiState.getOrCreateInventoryState(17);
+        Assert.assertFalse(guiState.wasEvicted(17)); //Created again
+
+        //Pages being looked at are kept, however long ago they were used
+        Object viewer = new Object();
+        Object otherViewer = new Object();
+        guiState.setViewedPage(viewer, 16);
+        guiState.setViewedPage(otherViewer, 17);
+        guiState.updateViewedPage(otherViewer, 18);
+        for(int page=30;page<=40;page++){
+            guiState.getOrCreateInventoryState(page);
+        }
+        Assert.assertTrue(guiState.hasInventoryState(16));
+        Assert.assertTrue(guiState.hasInventoryState(18));
+        Assert.assertFalse(guiState.hasInventoryState(17)); //No longer being looked at
+        guiState.removeViewer(viewer);
+        guiState.getOrCreateInventoryState(41);
+        Assert.assertFalse(guiState.hasInventoryState(16));
+
+        try {
+            guiState.setPageRetention(2, 1);
+            Assert.fail("The radius should not be allowed to cover more pages than are retained");
+        }
+        catch(IllegalArgumentException e){
+            //Expected
+        }
+    }
+
+    @Test
+    public void testPrefetchedPages() throws InterruptedException {
+        GUIState guiState = new GUIState();
+        InventoryState prefetched = new InventoryState();
+
+        guiState.putPrefetchedInventoryState(2, prefetched);
+        Assert.assertSame(prefetched, guiState.takePrefetchedInventoryState(2, 60000));
+        Assert.assertNull(guiState.takePrefetchedInventoryState(2)); //Taken
+
+        //Prefetched pages older than allowed aren't used
+        guiState.putPrefetchedInventoryState(2, prefetched);
+        Thread.sleep(5);
+        Assert.assertNull(guiState.takePrefetchedInventoryState(2, 1));
+        Assert.assertNull(guiState.takePrefetchedInventoryState(2, GUIState.ANY_PREFETCH_AGE)); //Still removed
+
+        //Recalculating contents discards everything prefetched
+        guiState.putPrefetchedInventoryState(2, prefetched);
+        guiState.putPrefetchedInventoryState(3, prefetched);
+        guiState.clearPrefetchedInventoryStates();
+        Assert.assertNull(guiState.takePrefetchedInventoryState(2));
+        Assert.assertNull(guiState.takePrefetchedInventoryState(3));
+
+        //Prefetches have their own requests, which only store their result if they're still the newest for the page
+        RequestToken request = guiState.beginPrefetchRequest(2);
+        RequestToken newer = guiState.beginPrefetchRequest(2);
+        Assert.assertTrue(request.isCancelled());
+        Assert.assertFalse(guiState.putPrefetchedInventoryState(2, prefetched, request));
+        Assert.assertTrue(guiState.putPrefetchedInventoryState(2, prefetched, newer));
+        Assert.assertSame(prefetched, guiState.takePrefetchedInventoryState(2));
+
+        //And are cancelled when the contents are recalculated, or nobody is left viewing
+        request = guiState.beginPrefetchRequest(2);
+        guiState.clearPrefetchedInventoryStates();
+        Assert.assertTrue(request.isCancelled());
+        Assert.assertFalse(guiState.putPrefetchedInventoryState(2, prefetched, request));
+        Assert.assertNull(guiState.takePrefetchedInventoryState(2));
+        Object viewer = new Object();
+        guiState.setViewedPage(viewer, 1);
+        request = guiState.beginPrefetchRequest(2);
+        guiState.removeViewer(viewer);
+        Assert.assertTrue(request.isCancelled());
+    }
+}
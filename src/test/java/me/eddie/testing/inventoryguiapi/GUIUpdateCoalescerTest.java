@@ -0,0 +1,103 @@
+package me.eddie.testing.inventoryguiapi;
+
+import junit.framework.Assert;
+import me.eddie.inventoryguiapi.gui.contents.GUIContentsProvider;
+import me.eddie.inventoryguiapi.gui.guis.GUI;
+import me.eddie.inventoryguiapi.gui.guis.GUIUpdateCoalescer;
+import me.eddie.inventoryguiapi.gui.session.GUISession;
+import me.eddie.inventoryguiapi.gui.session.GUIState;
+import me.eddie.inventoryguiapi.plugin.InventoryGUIAPI;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test written to test GUIUpdateCoalescer
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({InventoryGUIAPI.class, Bukkit.class, BukkitScheduler.class, InventoryView.class})
+public class GUIUpdateCoalescerTest {
+    @Test
+    public void testGUIUpdateCoalescer(){
+        TestUtil.mockPlugin();
+        TestUtil.mockBukkitSchedulerAndInvCreation(); //Scheduled flushes don't run, so the test flushes itself
+
+        RecordingGUI gui = new RecordingGUI();
+        GUIUpdateCoalescer coalescer = new GUIUpdateCoalescer(gui);
+        GUISession session = new GUISession(gui, 1, new GUIState());
+        GUISession otherSession = new GUISession(gui, 1, new GUIState());
+        Player player = mockViewer(session);
+        Player otherPlayer = mockViewer(otherSession);
+
+        //Many requests for the same thing are performed once, and recalculating contents wins over only updating the view
+        coalescer.requestUpdate(session, player, session, false);
+        coalescer.requestUpdate(session, player, session, true);
+        coalescer.requestUpdate(session, player, session, false);
+        coalescer.requestUpdate(otherSession, otherPlayer, otherSession, false);
+        Assert.assertTrue(coalescer.hasPendingUpdates());
+        coalescer.flush();
+        Assert.assertFalse(coalescer.hasPendingUpdates());
+        Assert.assertEquals(1, gui.contentUpdates.size());
+        Assert.assertSame(session, gui.contentUpdates.get(0));
+        Assert.assertEquals(1, gui.viewUpdates.size());
+        Assert.assertSame(otherSession, gui.viewUpdates.get(0));
+
+        //Updates for sessions the player is no longer viewing are skipped
+        gui.contentUpdates.clear();
+        gui.viewUpdates.clear();
+        coalescer.requestUpdate(session, player, session, true);
+        InventoryView closedView = Mockito.mock(InventoryView.class); //Now looking at their own inventory
+        Mockito.when(player.getOpenInventory()).thenReturn(closedView);
+        coalescer.flush();
+        Assert.assertTrue(gui.contentUpdates.isEmpty());
+
+        //Cancelled updates aren't performed
+        coalescer.requestUpdate(otherSession, otherPlayer, otherSession, false);
+        coalescer.cancelUpdate(otherSession);
+        Assert.assertFalse(coalescer.hasPendingUpdates());
+        coalescer.flush();
+        Assert.assertTrue(gui.viewUpdates.isEmpty());
+    }
+
+    //Mock a player looking at the inventory of the given session
+    private Player mockViewer(GUISession session){
+        Player player = Mockito.mock(Player.class);
+        Inventory inventory = Mockito.mock(Inventory.class);
+        Mockito.when(inventory.getHolder()).thenReturn(session);
+        InventoryView view = Mockito.mock(InventoryView.class);
+        Mockito.when(view.getTopInventory()).thenReturn(inventory);
+        Mockito.when(player.getOpenInventory()).thenReturn(view);
+        return player;
+    }
+
+    //GUI that records the updates performed instead of performing them
+    private static class RecordingGUI extends GUI {
+        private final List<GUISession> contentUpdates = new ArrayList<GUISession>();
+        private final List<GUISession> viewUpdates = new ArrayList<GUISession>();
+
+        private RecordingGUI(){
+            super(InventoryType.CHEST, 9, false, Mockito.mock(GUIContentsProvider.class));
+        }
+
+        @Override
+        protected void updateContentsAndViewNow(Player player, GUISession session){
+            contentUpdates.add(session);
+        }
+
+        @Override
+        protected void updateViewNow(Player player, GUISession session){
+            viewUpdates.add(session);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package me.eddie.testing.inventoryguiapi;
+
+import junit.framework.Assert;
+import me.eddie.inventoryguiapi.gui.elements.GUIElement;
+import me.eddie.inventoryguiapi.gui.session.InventoryLayout;
+import me.eddie.inventoryguiapi.gui.session.InventoryState;
+import me.eddie.inventoryguiapi.gui.session.PageSnapshot;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test written to test InventoryLayout and it's use by InventoryState
+ */
+public class InventoryLayoutTest {
+    @Test
+    public void testLayout(){
+        GUIElement first = Mockito.mock(GUIElement.class);
+        GUIElement second = Mockito.mock(GUIElement.class);
+
+        Map<Integer, GUIElement> contents = new HashMap<Integer, GUIElement>();
+        contents.put(3, first);
+        contents.put(20, second);
+        InventoryLayout layout = new InventoryLayout(contents);
+        contents.put(40, first); //Changing the map afterwards must not change the layout
+
+        Assert.assertEquals(20, layout.getHighestOccupiedSlot());
+        Assert.assertEquals(2, layout.getOccupiedSlotCount());
+        Assert.assertSame(first, layout.getElement(3));
+        Assert.assertSame(second, layout.getElement(20));
+        Assert.assertNull(layout.getElement(4));
+        Assert.assertNull(layout.getElement(40)); //Beyond the end of the layout
+        Assert.assertEquals(2, layout.asMap().size());
+
+        Assert.assertTrue(InventoryLayout.EMPTY.isEmpty());
+        Assert.assertEquals(-1, InventoryLayout.EMPTY.getHighestOccupiedSlot());
+
+        GUIElement[] elements = new GUIElement[54];
+        elements[10] = first;
+        InventoryLayout fromArray = new InventoryLayout(elements);
+        elements[11] = second; //Changing the array afterwards must not change the layout
+        Assert.assertEquals(10, fromArray.getHighestOccupiedSlot());
+        Assert.assertNull(fromArray.getElement(11));
+
+        try {
+            contents.put(-1, first);
+            new InventoryLayout(contents);
+            Assert.fail("Negative slots should not be allowed");
+        }
+        catch(IllegalArgumentException e){
+            //Expected
+        }
+    }
+
+    @Test
+    public void testInventoryStateSnapshot(){
+        GUIElement first = Mockito.mock(GUIElement.class);
+        GUIElement second = Mockito.mock(GUIElement.class);
+        InventoryState state = new InventoryState();
+
+        Map<Integer, GUIElement> contents = new HashMap<Integer, GUIElement>();
+        contents.put(0, first);
+        state.setComputedContentsBySlot(contents);
+        InventoryLayout snapshot = state.getLayout();
+
+        contents.put(0, second);
+        state.setComputedContentsBySlot(contents);
+
+        Assert.assertSame(first, snapshot.getElement(0)); //The old snapshot doesn't change
+        Assert.assertSame(second, state.getElementInSlot(0));
+        Assert.assertEquals(1, state.getComputedContentsBySlot().size());
+
+        PageSnapshot page = state.getSnapshot();
+        state.setSnapshot(new PageSnapshot(InventoryLayout.EMPTY, "New title", true)); //Everything replaced at once
+        Assert.assertSame(second, page.getLayout().getElement(0)); //The old snapshot doesn't change
+        Assert.assertNull(page.getTitle());
+        Assert.assertEquals("New title", state.getTitle());
+        Assert.assertTrue(state.hasNextPage());
+        Assert.assertNull(state.getElementInSlot(0));
+    }
+}
@@ -0,0 +1,75 @@
+package me.eddie.testing.inventoryguiapi;
+
+import junit.framework.Assert;
+import me.eddie.inventoryguiapi.gui.elements.ActionItem;
+import me.eddie.inventoryguiapi.gui.events.GUIClickEvent;
+import me.eddie.inventoryguiapi.gui.view.RenderedContents;
+import me.eddie.inventoryguiapi.util.ItemFingerprint;
+import me.eddie.inventoryguiapi.util.StackCompatibilityUtil;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Test written to test ItemFingerprint
+ */
+public class ItemFingerprintTest {
+    @Test
+    public void testItemFingerprint(){
+        try {
+            TestUtil.mockItemFactory();
+        } catch (NoSuchFieldException e) {
+            e.printStackTrace();
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        }
+
+        ItemStack stone = new ItemStack(Material.STONE, 10);
+        ItemStack moreStone = new ItemStack(Material.STONE, 64);
+        ItemStack damagedStone = new ItemStack(Material.STONE, 10, (short) 1);
+        ItemStack dirt = new ItemStack(Material.DIRT, 10);
+
+        //Amount doesn't matter, everything else does
+        Assert.assertEquals(ItemFingerprint.of(stone), ItemFingerprint.of(moreStone));
+        Assert.assertEquals(ItemFingerprint.of(stone).hashCode(), ItemFingerprint.of(moreStone).hashCode());
+        Assert.assertTrue(ItemFingerprint.of(stone).mightStackWith(ItemFingerprint.of(moreStone)));
+        Assert.assertFalse(ItemFingerprint.of(stone).mightStackWith(ItemFingerprint.of(damagedStone)));
+        Assert.assertFalse(ItemFingerprint.of(stone).mightStackWith(ItemFingerprint.of(dirt)));
+        Assert.assertFalse(ItemFingerprint.of(stone).mightStackWith(null));
+
+        Assert.assertTrue(StackCompatibilityUtil.canStack(stone, moreStone));
+        Assert.assertFalse(StackCompatibilityUtil.canStack(stone, damagedStone));
+        Assert.assertFalse(StackCompatibilityUtil.canStack(stone, ItemFingerprint.of(stone), moreStone, ItemFingerprint.of(dirt))); //Fingerprints that differ rule stacking out
+
+        //ActionItems cache their display item's fingerprint, and work it out again for a new display item
+        ActionItem actionItem = new ActionItem(stone, new ActionItem.ActionHandler() {
+            @Override
+            public void onClick(GUIClickEvent event) {
+
+            }
+        });
+        ItemFingerprint fingerprint = actionItem.getDisplayFingerprint();
+        Assert.assertSame(fingerprint, actionItem.getDisplayFingerprint());
+        actionItem.setDisplayItem(dirt);
+        Assert.assertEquals(Material.DIRT, actionItem.getDisplayFingerprint().getType());
+
+        //Display items changed in place are still noticed when diff rendering, even with the old fingerprint
+        Inventory inventory = Mockito.mock(Inventory.class);
+        Mockito.when(inventory.getSize()).thenReturn(9);
+        RenderedContents rendered = RenderedContents.createForEmpty(inventory);
+        ItemStack display = new ItemStack(Material.STONE, 1);
+        ItemFingerprint displayFingerprint = ItemFingerprint.of(display);
+        rendered.setRendered(0, display);
+        Assert.assertFalse(rendered.hasChanged(0, display, displayFingerprint));
+        display.setType(Material.DIRT);
+        Assert.assertTrue(rendered.hasChanged(0, display, displayFingerprint));
+        Assert.assertTrue(rendered.hasChanged(0, new ItemStack(Material.STONE, 1, (short) 1), ItemFingerprint.of(damagedStone))); //Ruled out by fingerprint
+
+        //Fingerprints of slot contents are only given when they look like what's actually there
+        Assert.assertNotNull(rendered.getFingerprint(0, new ItemStack(Material.STONE, 1)));
+        Assert.assertNull(rendered.getFingerprint(0, new ItemStack(Material.STONE, 2)));
+        Assert.assertNull(rendered.getFingerprint(1, null));
+    }
+}
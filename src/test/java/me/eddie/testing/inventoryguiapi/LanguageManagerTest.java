@@ -1,7 +1,11 @@
 package me.eddie.testing.inventoryguiapi;
 
 import me.eddie.inventoryguiapi.language.GUILanguageManager;
+import me.eddie.inventoryguiapi.language.MessageTemplate;
+import me.eddie.inventoryguiapi.plugin.InventoryGUIAPI;
+import org.bukkit.entity.Player;
 import org.junit.Test;
+import org.mockito.Mockito;
 
 import java.util.Locale;
 
@@ -21,4 +25,42 @@ public class LanguageManagerTest {
         assert formatted != null;
         assert formatted.contains("name");
     }
+
+    @Test
+    public void testMessageTemplates(){
+        String[] formats = new String[]{"%1$s page %2$s", "%s and %s", "100%% %s%n", "No arguments", "%2$s before %1$s", "%2$d padded %1$8s"};
+        for(String format:formats){
+            MessageTemplate template = new MessageTemplate(format, Locale.ENGLISH);
+            assert template.format("first", 2).equals(String.format(Locale.ENGLISH, format, "first", 2)) : format;
+        }
+
+        GUILanguageManager languageManager = new GUILanguageManager(Locale.ENGLISH);
+        String title = languageManager.getFormattedTitle("gui.title.withPageNumberAndCount", "Title", 2, 5);
+        assert title.equals(String.format(Locale.ENGLISH, languageManager.getString("gui.title.withPageNumberAndCount"), "Title", 2, 5));
+        assert title == languageManager.getFormattedTitle("gui.title.withPageNumberAndCount", "Title", 2, 5); //Cached
+        assert !title.equals(languageManager.getFormattedTitle("gui.title.withPageNumberAndCount", "Title", 3, 5));
+    }
+
+    @Test
+    public void testPlayerLocales(){
+        Player spanish = mockPlayerWithLocale("es_es");
+        Player otherSpanish = mockPlayerWithLocale("es_ES");
+        Player unknown = mockPlayerWithLocale(null);
+
+        assert new Locale("es", "ES").equals(InventoryGUIAPI.getLocale(spanish));
+        assert InventoryGUIAPI.getLocale(unknown) == null;
+        assert InventoryGUIAPI.getLocale(null) == null;
+
+        GUILanguageManager languageManager = InventoryGUIAPI.getLanguageManager(spanish);
+        assert languageManager.getString("gui.title.loading").equals("Cargando...");
+        assert languageManager == InventoryGUIAPI.getLanguageManager(otherSpanish); //Same locale, so the same language manager
+    }
+
+    private Player mockPlayerWithLocale(String locale){
+        Player player = Mockito.mock(Player.class);
+        Player.Spigot spigot = Mockito.mock(Player.Spigot.class);
+        Mockito.when(spigot.getLocale()).thenReturn(locale);
+        Mockito.when(player.spigot()).thenReturn(spigot);
+        return player;
+    }
 }
@@ -3,6 +3,7 @@ package me.eddie.testing.inventoryguiapi;
 import junit.framework.Assert;
 import me.eddie.inventoryguiapi.gui.contents.GUIContentsProvider;
 import me.eddie.inventoryguiapi.gui.contents.PaginatingGUIContentsProvider;
+import me.eddie.inventoryguiapi.gui.contents.RangedPaginatingGUIContentsProvider;
 import me.eddie.inventoryguiapi.gui.elements.GUIElement;
 import me.eddie.inventoryguiapi.gui.elements.GUIElementFactory;
 import me.eddie.inventoryguiapi.gui.guis.InventoryGUI;
@@ -93,6 +94,81 @@ public class PaginatingGUIContentsProviderTest {
         testPageSplitting(9, 15, 2, true, 7); //15 needs a 3rd page
     }
 
+    @Test
+    public void testRangedPageSplitting(){
+        //Same cases as testPageSplitting, but only the visible elements should ever be asked for
+        //Args: invSize, numOfElements, page number to check, should there be a page after it, numOfElements on page, index of first element on page
+        testRangedPageSplitting(54, 0, 1, false, 0, 0);
+        testRangedPageSplitting(54, 1, 1, false, 1, 0);
+        testRangedPageSplitting(54, 54, 1, false, 54, 0);
+        testRangedPageSplitting(54, 55, 1, true, 52, 0);
+        testRangedPageSplitting(9, 10, 2, false, 3, 7);
+        testRangedPageSplitting(9, 15, 2, true, 7, 7);
+        testRangedPageSplitting(54, 80000, 3, true, 52, 104); //Lots of elements, only 52 should be created
+        testRangedPageSplitting(9, 14, 3, false, 0, -1); //Page past the end shouldn't ask for any elements
+    }
+
+    private void testRangedPageSplitting(final int invSize, final int elemAmt, final int page, final boolean shouldHaveNextPage,
+                                         final int amtOnPage, final int firstIndex){
+        final List<Integer> requestedOffsets = new ArrayList<Integer>();
+        RangedPaginatingGUIContentsProvider contentsProvider = new RangedPaginatingGUIContentsProvider() { //The object to test
+            @Override
+            public void genContentsCount(Player viewer, GUISession session, Callback<Integer> callback) {
+                callback.call(elemAmt);
+            }
+
+            @Override
+            public void genContents(Player viewer, GUISession session, int offset, int limit, Callback<List<GUIElement>> callback) {
+                requestedOffsets.add(offset);
+                Assert.assertTrue(offset + limit <= elemAmt); //Never ask for elements that don't exist
+                List<GUIElement> res = new ArrayList<GUIElement>();
+                for(int i=0;i<limit;i++){
+                    res.add(Mockito.mock(GUIElement.class));
+                }
+                callback.call(res);
+            }
+
+            @Override
+            public void genBaseTitle(Player viewer, GUISession session, Callback<String> callback) {
+                callback.call("A title"); //Irrelevant to test
+            }
+
+            @Override
+            public boolean showPageNumberInTitle() {
+                return false; //Irrelevant to test
+            }
+
+            @Override
+            public boolean showPageCountInTitle() {
+                return false; //Irrelevant to test
+            }
+        };
+
+        InventoryGUI gui = Mockito.mock(InventoryGUI.class);
+        Mockito.when(gui.getMaximumGUISize()).thenReturn(invSize);
+        final GUISession session = new GUISession(gui, page, new GUIState());
+        final Player viewer = Mockito.mock(Player.class);
+
+        final boolean[] called = new boolean[]{false};
+        contentsProvider.genContents(viewer, page, session, new Callback<GUIContentsProvider.GUIContentsResponse>() {
+            @Override
+            public void call(GUIContentsProvider.GUIContentsResponse result) {
+                called[0] = true;
+                Assert.assertEquals(shouldHaveNextPage, result.hasNextPage()); //Check if the page splitting was done correctly
+                Assert.assertEquals(amtOnPage, result.getElements().size()); //Check if the quantity of returned elements is right
+            }
+        });
+        Assert.assertTrue(called[0]);
+
+        if(firstIndex < 0){
+            Assert.assertTrue(requestedOffsets.isEmpty());
+        }
+        else {
+            Assert.assertEquals(1, requestedOffsets.size()); //Only the one range should have been asked for
+            Assert.assertEquals(firstIndex, (int) requestedOffsets.get(0));
+        }
+    }
+
     private void testPageSplitting(final int invSize, final int elemAmt, final int page, final boolean shouldHaveNextPage,
                                                 final int amtOnPage){ //Test if page buttons were generated correctly for given size inv and num of elems
         PaginatingGUIContentsProvider contentsProvider = new PaginatingGUIContentsProvider() { //The object to test
@@ -0,0 +1,134 @@
+package me.eddie.testing.inventoryguiapi;
+
+import junit.framework.Assert;
+import me.eddie.inventoryguiapi.gui.contents.GUIContentsProvider;
+import me.eddie.inventoryguiapi.gui.contents.GUIPopulator;
+import me.eddie.inventoryguiapi.gui.guis.SharedGUI;
+import me.eddie.inventoryguiapi.gui.session.GUISession;
+import me.eddie.inventoryguiapi.gui.session.RequestToken;
+import me.eddie.inventoryguiapi.gui.view.GUIPresenter;
+import me.eddie.inventoryguiapi.plugin.InventoryGUIAPI;
+import me.eddie.inventoryguiapi.util.Callback;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Test written to test SharedGUI
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({InventoryGUIAPI.class, Bukkit.class, BukkitScheduler.class, InventoryView.class})
+public class SharedGUITest {
+    @Test
+    public void testPopulatesOncePerPage(){
+        TestUtil.mockPlugin();
+        TestUtil.mockBukkitSchedulerAndInvCreation();
+
+        //Record who contents are calculated for, instead of calculating them
+        final List<GUISession> populated = new ArrayList<GUISession>();
+        GUIPopulator populator = Mockito.mock(GUIPopulator.class);
+        Answer recordPopulated = new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                populated.add((GUISession) invocation.getArguments()[0]);
+                return null;
+            }
+        };
+        Mockito.doAnswer(recordPopulated).when(populator).populateGUI(Mockito.any(GUISession.class), Mockito.any(Player.class), Mockito.any(Callback.class));
+        Mockito.doAnswer(recordPopulated).when(populator).populateGUI(Mockito.any(GUISession.class), Mockito.any(Player.class),
+                Mockito.any(RequestToken.class), Mockito.any(Callback.class));
+        Mockito.doAnswer(recordPopulated).when(populator).populateGUI(Mockito.any(GUISession.class), Mockito.any(Player.class),
+                Mockito.any(RequestToken.class), Mockito.any(Collection.class), Mockito.any(Callback.class));
+
+        TestSharedGUI gui = new TestSharedGUI(populator);
+        GUISession firstPage = gui.open(1);
+        GUISession alsoFirstPage = gui.open(1);
+        GUISession secondPage = gui.open(2);
+        Assert.assertEquals(3, gui.getViewers().size());
+
+        //Viewers of the same page all see the same contents, so they're calculated once per page
+        gui.update();
+        Assert.assertEquals(2, populated.size());
+        Assert.assertTrue(populated.get(0) == firstPage || populated.get(0) == alsoFirstPage);
+        Assert.assertSame(secondPage, populated.get(1));
+
+        //Each page is calculated as part of a request owned by the page, not by the viewer it's calculated with
+        RequestToken firstPageRequest = gui.getPageRequest(1);
+        Assert.assertNotNull(firstPageRequest);
+        firstPage.cancelRequests(); //As happens when they close the GUI
+        gui.close(firstPage);
+        Assert.assertFalse(firstPageRequest.isCancelled());
+        gui.update();
+        Assert.assertTrue(firstPageRequest.isCancelled()); //Superseded
+        firstPageRequest = gui.getPageRequest(1);
+        gui.close(alsoFirstPage);
+        Assert.assertTrue(firstPageRequest.isCancelled()); //Nobody is left viewing the page
+        Assert.assertNull(gui.getPageRequest(1));
+        Assert.assertFalse(gui.getPageRequest(2).isCancelled());
+
+        //Unless contents are calculated for each viewer
+        populated.clear();
+        GUISession thirdPage = gui.open(3);
+        gui.setPopulatePerViewer(true);
+        gui.update();
+        Assert.assertEquals(2, populated.size());
+        Assert.assertTrue(populated.contains(secondPage));
+        Assert.assertTrue(populated.contains(thirdPage));
+    }
+
+    //SharedGUI that lets the test open it for mocked players and update it straight away
+    private static class TestSharedGUI extends SharedGUI {
+        private final List<Player> players = new ArrayList<Player>();
+        private final List<GUISession> sessions = new ArrayList<GUISession>();
+
+        private TestSharedGUI(GUIPopulator populator){
+            super(InventoryType.CHEST, 9, false, Mockito.mock(GUIContentsProvider.class), populator, new GUIPresenter());
+        }
+
+        //Mock a player looking at the given page of this GUI
+        private GUISession open(int page){
+            Player player = Mockito.mock(Player.class);
+            Mockito.when(player.isOnline()).thenReturn(true);
+            GUISession session = createNewSession(player, page);
+            Inventory inventory = Mockito.mock(Inventory.class);
+            Mockito.when(inventory.getHolder()).thenReturn(session);
+            InventoryView view = Mockito.mock(InventoryView.class);
+            Mockito.when(view.getTopInventory()).thenReturn(inventory);
+            Mockito.when(player.getOpenInventory()).thenReturn(view);
+            onViewerOpened(player, session);
+            players.add(player);
+            sessions.add(session);
+            return session;
+        }
+
+        //Mock the player viewing the given session closing this GUI
+        private void close(GUISession session){
+            int index = sessions.indexOf(session);
+            Player player = players.get(index);
+            InventoryView closedView = Mockito.mock(InventoryView.class); //Now looking at their own inventory
+            Mockito.when(player.getOpenInventory()).thenReturn(closedView);
+            onViewerClosed(player, session);
+            players.remove(index);
+            sessions.remove(index);
+        }
+
+        //Update the contents as if the first player still viewing it asked for it
+        private void update(){
+            updateContentsAndViewNow(players.get(0), sessions.get(0));
+        }
+    }
+}
@@ -14,6 +14,7 @@ import org.bukkit.event.Event;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemFactory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.plugin.Plugin;
@@ -280,4 +281,18 @@ public class TestUtil {
         server.set(null, serverMock);
         server.setAccessible(false);
     }
+
+    public static void mockItemFactory() throws NoSuchFieldException, IllegalAccessException { //Mock the server with an ItemFactory so that ItemStacks can be compared
+        mockServer();
+        ItemFactory itemFactory = Mockito.mock(ItemFactory.class);
+        Mockito.when(itemFactory.equals(Mockito.any(ItemMeta.class), Mockito.any(ItemMeta.class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocationOnMock) throws Throwable {
+                Object a = invocationOnMock.getArguments()[0];
+                Object b = invocationOnMock.getArguments()[1];
+                return a == null ? b == null : a.equals(b);
+            }
+        });
+        Mockito.when(Bukkit.getServer().getItemFactory()).thenReturn(itemFactory);
+    }
 }
@@ -0,0 +1,89 @@
+package me.eddie.testing.inventoryguiapi;
+
+import junit.framework.Assert;
+import me.eddie.inventoryguiapi.gui.guis.TransferPlan;
+import me.eddie.inventoryguiapi.gui.view.RenderedContents;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Test written to test TransferPlan
+ */
+public class TransferPlanTest {
+    private static void mockItemFactory(){ //Items must be compared to plan stacking
+        try {
+            TestUtil.mockItemFactory();
+        } catch (NoSuchFieldException e) {
+            e.printStackTrace();
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void testTransferPlan(){
+        mockItemFactory();
+        Inventory destInv = Mockito.mock(Inventory.class);
+        Mockito.when(destInv.getSize()).thenReturn(9);
+        Mockito.when(destInv.getItem(1)).thenReturn(new ItemStack(Material.DIRT, 10)); //Can't stack
+        Mockito.when(destInv.getItem(3)).thenReturn(new ItemStack(Material.STONE, 60)); //Room for 4
+        Mockito.when(destInv.getItem(5)).thenReturn(new ItemStack(Material.STONE, 64)); //Full
+        Mockito.when(destInv.getItem(7)).thenReturn(new ItemStack(Material.STONE, 50)); //Room for 14
+
+        //Existing stacks are filled first, then empty slots
+        TransferPlan plan = TransferPlan.plan(null, null, null, destInv, 9, new ItemStack(Material.STONE, 64));
+        Assert.assertEquals(3, plan.size());
+        Assert.assertEquals(3, plan.getSlot(0));
+        Assert.assertEquals(4, plan.getAmount(0));
+        Assert.assertTrue(plan.isStacking(0));
+        Assert.assertEquals(7, plan.getSlot(1));
+        Assert.assertEquals(14, plan.getAmount(1));
+        Assert.assertEquals(0, plan.getSlot(2));
+        Assert.assertEquals(46, plan.getAmount(2));
+        Assert.assertFalse(plan.isStacking(2));
+        Assert.assertEquals(64, plan.getTotalAmount());
+
+        //Slots past the limit aren't used
+        plan = TransferPlan.plan(null, null, null, destInv, 2, new ItemStack(Material.DIRT, 5));
+        Assert.assertEquals(1, plan.size());
+        Assert.assertEquals(1, plan.getSlot(0));
+    }
+
+    @Test
+    public void testInsertCandidates(){
+        mockItemFactory();
+        Inventory destInv = Mockito.mock(Inventory.class);
+        Mockito.when(destInv.getSize()).thenReturn(9);
+        RenderedContents rendered = RenderedContents.createForEmpty(destInv);
+        for(int i=0;i<9;i++){
+            if(i != 4){
+                rendered.setRendered(i, new ItemStack(Material.DIRT, 64)); //Everything full apart from slot 4
+            }
+        }
+        rendered.setRendered(6, new ItemStack(Material.STONE, 10));
+        rendered.invalidate(8);
+
+        //Empty, partial stone and unknown
+        Assert.assertEquals(4, rendered.nextInsertCandidate(Material.STONE, 0));
+        Assert.assertEquals(6, rendered.nextInsertCandidate(Material.STONE, 5));
+        Assert.assertEquals(8, rendered.nextInsertCandidate(Material.STONE, 7));
+        Assert.assertEquals(-1, rendered.nextInsertCandidate(Material.STONE, 9));
+        Assert.assertEquals(8, rendered.nextInsertCandidate(Material.DIRT, 5));
+
+        //Only the candidates are looked at
+        Mockito.when(destInv.getItem(6)).thenReturn(new ItemStack(Material.STONE, 10));
+        Mockito.when(destInv.getItem(8)).thenReturn(new ItemStack(Material.STONE, 64));
+        TransferPlan plan = TransferPlan.plan(null, null, null, destInv, 9, new ItemStack(Material.STONE, 64));
+        Assert.assertEquals(2, plan.size());
+        Assert.assertEquals(6, plan.getSlot(0));
+        Assert.assertEquals(4, plan.getSlot(1));
+        Mockito.verify(destInv, Mockito.never()).getItem(0);
+
+        //Changes made outside of a GUIPresenter keep the index up to date
+        RenderedContents.update(destInv, 4, new ItemStack(Material.STONE, 64));
+        Assert.assertEquals(6, rendered.nextInsertCandidate(Material.STONE, 0));
+    }
+}